@@ -0,0 +1,95 @@
+package com.lockin.rewrite.bench;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compares two JMH JSON result files (baseline first) benchmark by benchmark:
+ * time per operation and allocated bytes per operation from the GC profiler.
+ * Exits with status 1 if anything got slower or allocates more by more than
+ * the threshold (default 10%), so it can gate a build.
+ *
+ * <pre>CompareBaseline baseline.json current.json [thresholdPercent]</pre>
+ */
+public final class CompareBaseline {
+
+    private static final String ALLOCATION = "gc.alloc.rate.norm";
+
+    private CompareBaseline() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: CompareBaseline <baseline.json> <current.json> [thresholdPercent]");
+            System.exit(2);
+        }
+        Map<String, JsonNode> baseline = read(Path.of(args[0]));
+        Map<String, JsonNode> current = read(Path.of(args[1]));
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 10.0;
+
+        boolean regressed = false;
+        System.out.printf("%-72s %14s %14s %8s %12s %12s %8s%n",
+                "Benchmark", "base", "current", "time", "base B/op", "current B/op", "alloc");
+        for (Map.Entry<String, JsonNode> entry : current.entrySet()) {
+            JsonNode now = entry.getValue();
+            JsonNode before = baseline.get(entry.getKey());
+            double score = now.path("primaryMetric").path("score").asDouble();
+            double bytes = now.path("secondaryMetrics").path(ALLOCATION).path("score").asDouble(Double.NaN);
+            String unit = now.path("primaryMetric").path("scoreUnit").asText();
+            if (before == null) {
+                System.out.printf("%-72s %14s %14s %8s %12s %12.0f %8s%n", entry.getKey(), "-",
+                        format(score, unit), "new", "-", bytes, "new");
+                continue;
+            }
+            double baseScore = before.path("primaryMetric").path("score").asDouble();
+            double baseBytes = before.path("secondaryMetrics").path(ALLOCATION).path("score").asDouble(Double.NaN);
+            double timeChange = change(baseScore, score);
+            double allocChange = change(baseBytes, bytes);
+            // Lower is better for both: the harness measures average time per operation
+            boolean worse = timeChange > threshold || allocChange > threshold;
+            regressed |= worse;
+            System.out.printf("%-72s %14s %14s %7.1f%% %12.0f %12.0f %7.1f%%%s%n", entry.getKey(),
+                    format(baseScore, unit), format(score, unit), timeChange, baseBytes, bytes, allocChange,
+                    worse ? "  <-- regression" : "");
+        }
+        for (String missing : baseline.keySet()) {
+            if (!current.containsKey(missing)) {
+                System.out.printf("%-72s (not run)%n", missing);
+            }
+        }
+        System.exit(regressed ? 1 : 0);
+    }
+
+    /** Results by benchmark name plus parameters, e.g. {@code ...parse:document=pdf-12}. */
+    private static Map<String, JsonNode> read(Path file) throws IOException {
+        Map<String, JsonNode> results = new LinkedHashMap<>();
+        for (JsonNode result : new ObjectMapper().readTree(file.toFile())) {
+            StringBuilder key = new StringBuilder(result.path("benchmark").asText()
+                    .replace("com.lockin.rewrite.service.", ""));
+            Iterator<Map.Entry<String, JsonNode>> params = result.path("params").fields();
+            while (params.hasNext()) {
+                Map.Entry<String, JsonNode> param = params.next();
+                key.append(':').append(param.getKey()).append('=').append(param.getValue().asText());
+            }
+            results.put(key.toString(), result);
+        }
+        return results;
+    }
+
+    private static double change(double before, double after) {
+        if (Double.isNaN(before) || Double.isNaN(after) || before == 0) {
+            return 0;
+        }
+        return (after - before) / before * 100;
+    }
+
+    private static String format(double score, String unit) {
+        return String.format("%.3f %s", score, unit);
+    }
+}
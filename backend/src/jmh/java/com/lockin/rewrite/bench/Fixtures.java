@@ -0,0 +1,152 @@
+package com.lockin.rewrite.bench;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Inputs shared by the benchmarks: text fixtures from {@code /fixtures} and a
+ * corpus of resume documents built from {@code resume.txt}.
+ *
+ * The documents are generated rather than checked in so the corpus is
+ * reproducible and small in the repository; they mirror what the parsers see
+ * in practice (a one-page resume, a multi-page CV, a Word resume with a skills
+ * table, headers and run splitting).
+ */
+public final class Fixtures {
+
+    public static final String RESUME = "resume.txt";
+    public static final String JOB_DESCRIPTION = "job-description.txt";
+    public static final String GEMINI_ANALYSIS = "gemini-analysis.txt";
+
+    private static final float MARGIN = 54;
+    private static final float LEADING = 13;
+
+    private Fixtures() {
+    }
+
+    public static String text(String name) {
+        try (InputStream in = Fixtures.class.getResourceAsStream("/fixtures/" + name)) {
+            if (in == null) {
+                throw new IllegalArgumentException("No fixture " + name);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** The resume text laid out over {@code pages} Letter pages, repeated as needed. */
+    public static byte[] pdf(int pages) {
+        List<String> lines = text(RESUME).lines().toList();
+        PDType1Font font = new PDType1Font(Standard14Fonts.FontName.HELVETICA);
+        try (PDDocument document = new PDDocument(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            int next = 0;
+            for (int p = 0; p < pages; p++) {
+                PDPage page = new PDPage(PDRectangle.LETTER);
+                document.addPage(page);
+                try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                    content.beginText();
+                    content.setFont(font, 10);
+                    content.setLeading(LEADING);
+                    content.newLineAtOffset(MARGIN, PDRectangle.LETTER.getHeight() - MARGIN);
+                    for (float y = MARGIN; y < PDRectangle.LETTER.getHeight() - MARGIN; y += LEADING) {
+                        String line = lines.get(next++ % lines.size()).strip();
+                        // Long lines wrap on the page in real resumes; keep them inside the margins
+                        content.showText(line.length() > 100 ? line.substring(0, 100) : line);
+                        content.newLine();
+                    }
+                    content.endText();
+                }
+            }
+            document.save(out);
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * The resume as a .docx, {@code copies} times over: name in a header,
+     * skills in a table, bullets split into several runs with run properties,
+     * as Word writes them.
+     */
+    public static byte[] docx(int copies) {
+        List<String> lines = text(RESUME).lines().toList();
+        StringBuilder body = new StringBuilder();
+        for (int c = 0; c < copies; c++) {
+            for (String line : lines.subList(1, lines.size())) {
+                String text = line.strip();
+                if (text.startsWith("Languages:") || text.startsWith("Frameworks:") || text.startsWith("Tools:")) {
+                    int colon = text.indexOf(':');
+                    body.append("<w:tbl><w:tblPr><w:tblW w:w=\"0\" w:type=\"auto\"/></w:tblPr><w:tr>")
+                            .append("<w:tc><w:tcPr><w:tcW w:w=\"2000\"/></w:tcPr>").append(paragraph(text.substring(0, colon)))
+                            .append("</w:tc><w:tc>").append(paragraph(text.substring(colon + 1).strip()))
+                            .append("</w:tc></w:tr></w:tbl>");
+                } else {
+                    body.append(paragraph(text));
+                }
+            }
+        }
+        String document = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+                + "<w:document xmlns:w=\"http://schemas.openxmlformats.org/wordprocessingml/2006/main\"><w:body>"
+                + body
+                + "<w:sectPr><w:pgSz w:w=\"12240\" w:h=\"15840\"/></w:sectPr></w:body></w:document>";
+        String header = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+                + "<w:hdr xmlns:w=\"http://schemas.openxmlformats.org/wordprocessingml/2006/main\">"
+                + paragraph(lines.get(0)) + "</w:hdr>";
+        try (ByteArrayOutputStream out = new ByteArrayOutputStream(); ZipOutputStream zip = new ZipOutputStream(out)) {
+            entry(zip, "[Content_Types].xml", "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+                    + "<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">"
+                    + "<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>"
+                    + "<Default Extension=\"xml\" ContentType=\"application/xml\"/>"
+                    + "<Override PartName=\"/word/document.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.wordprocessingml.document.main+xml\"/>"
+                    + "</Types>");
+            entry(zip, "_rels/.rels", "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+                    + "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">"
+                    + "<Relationship Id=\"rId1\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/officeDocument\" Target=\"word/document.xml\"/>"
+                    + "</Relationships>");
+            entry(zip, "word/document.xml", document);
+            entry(zip, "word/header1.xml", header);
+            zip.finish();
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** A paragraph with its words spread over runs of up to four words, each with run properties. */
+    private static String paragraph(String text) {
+        StringBuilder p = new StringBuilder("<w:p><w:pPr><w:spacing w:after=\"0\"/></w:pPr>");
+        String[] words = text.split(" ");
+        for (int i = 0; i < words.length; i += 4) {
+            String run = String.join(" ", List.of(words).subList(i, Math.min(i + 4, words.length)));
+            p.append("<w:r><w:rPr><w:rFonts w:ascii=\"Calibri\"/><w:sz w:val=\"20\"/></w:rPr><w:t xml:space=\"preserve\">")
+                    .append(xml(i > 0 ? " " + run : run))
+                    .append("</w:t></w:r>");
+        }
+        return p.append("</w:p>").toString();
+    }
+
+    private static String xml(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+
+    private static void entry(ZipOutputStream zip, String name, String content) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        zip.write(content.getBytes(StandardCharsets.UTF_8));
+        zip.closeEntry();
+    }
+}
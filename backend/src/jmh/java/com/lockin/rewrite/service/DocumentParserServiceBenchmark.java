@@ -0,0 +1,69 @@
+package com.lockin.rewrite.service;
+
+import com.lockin.rewrite.bench.Fixtures;
+import io.micrometer.observation.ObservationRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Text extraction over the sample corpus ({@link Fixtures}), through the same
+ * entry point as an upload: in-memory PDFs, page-range parallelism from
+ * {@code resume.pdf.parallel-min-pages} pages on, streaming DOCX.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DocumentParserServiceBenchmark {
+
+    /** Format and page count (PDF) or copies of the resume (DOCX). */
+    @Param({"pdf-1", "pdf-3", "pdf-12", "docx-1", "docx-4"})
+    public String document;
+
+    private ForkJoinPool pool;
+    private DocumentParserService parser;
+    private DocumentType type;
+    private byte[] data;
+
+    @Setup
+    public void setUp() {
+        pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        // The application.properties defaults
+        parser = new DocumentParserService(50, pool, 4194304, 6, 2, 33554432, ObservationRegistry.NOOP);
+        int size = Integer.parseInt(document.substring(document.indexOf('-') + 1));
+        if (document.startsWith("pdf")) {
+            type = DocumentType.PDF;
+            data = Fixtures.pdf(size);
+        } else {
+            type = DocumentType.DOCX;
+            data = Fixtures.docx(size);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public String parse() throws IOException {
+        return parser.parse(new ByteArrayInputStream(data), type, data.length);
+    }
+}
@@ -0,0 +1,65 @@
+package com.lockin.rewrite.service;
+
+import com.lockin.rewrite.bench.Fixtures;
+import com.lockin.rewrite.model.KeywordMatch;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** Keyword extraction and scoring over a one-page resume and a typical JD, with the shipped skill dictionary. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KeywordServiceBenchmark {
+
+    private KeywordService keywordService;
+    private String resume;
+    private String jobDescription;
+    private List<String> resumeKeywords;
+    private List<String> jdKeywords;
+
+    @Setup
+    public void setUp() {
+        keywordService = new KeywordService(
+                new SkillDictionaryService(new DefaultResourceLoader(), "classpath:skills.txt"));
+        resume = Fixtures.text(Fixtures.RESUME);
+        jobDescription = Fixtures.text(Fixtures.JOB_DESCRIPTION);
+        resumeKeywords = keywordService.extractKeywords(resume);
+        jdKeywords = keywordService.extractKeywords(jobDescription);
+    }
+
+    @Benchmark
+    public List<String> extractKeywordsResume() {
+        return keywordService.extractKeywords(resume);
+    }
+
+    @Benchmark
+    public List<String> extractKeywordsJobDescription() {
+        return keywordService.extractKeywords(jobDescription);
+    }
+
+    @Benchmark
+    public double calculateMatchScore() {
+        return keywordService.calculateMatchScore(resumeKeywords, jdKeywords);
+    }
+
+    /** What the pipeline actually runs: both texts tokenized once, score and gaps together. */
+    @Benchmark
+    public KeywordMatch match() {
+        return keywordService.match(resume, jobDescription);
+    }
+}
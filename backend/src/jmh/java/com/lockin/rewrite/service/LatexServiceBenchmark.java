@@ -0,0 +1,71 @@
+package com.lockin.rewrite.service;
+
+import com.lockin.rewrite.bench.Fixtures;
+import com.lockin.rewrite.model.resume.ResumeData;
+import io.micrometer.observation.ObservationRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** LaTeX generation for the resume in the recorded Gemini analysis. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LatexServiceBenchmark {
+
+    private LatexService latexService;
+    private ResumeData resumeData;
+    private List<String> fields;
+
+    @Setup
+    public void setUp() {
+        // buildLatex and escape touch none of the rendering collaborators
+        latexService = new LatexService(null, null, null, 900);
+        resumeData = new ResumeAnalyzerService(null, null, null, null, ObservationRegistry.NOOP)
+                .parseResponse(Fixtures.text(Fixtures.GEMINI_ANALYSIS), Fixtures.text(Fixtures.RESUME))
+                .getResumeData();
+
+        // Every string buildLatex escapes, a few with special characters as real resumes have
+        fields = new ArrayList<>();
+        fields.add("R&D: cut costs 22% on C# services, $15/month, user_id ~ {v2}^2");
+        fields.add(resumeData.getSkills().getLanguages());
+        fields.add(resumeData.getSkills().getFrameworks());
+        fields.add(resumeData.getSkills().getTools());
+        for (ResumeData.Experience experience : resumeData.getExperience()) {
+            fields.add(experience.getTitle());
+            fields.add(experience.getCompany());
+            experience.getBulletPoints().forEach(bullet -> fields.add(bullet.getImproved()));
+        }
+        for (ResumeData.Project project : resumeData.getProjects()) {
+            fields.add(project.getTitle());
+            project.getBulletPoints().forEach(bullet -> fields.add(bullet.getImproved()));
+        }
+    }
+
+    @Benchmark
+    public String buildLatex() {
+        return latexService.buildLatex(resumeData);
+    }
+
+    @Benchmark
+    public void escape(Blackhole blackhole) {
+        for (String field : fields) {
+            blackhole.consume(latexService.escape(field));
+        }
+    }
+}
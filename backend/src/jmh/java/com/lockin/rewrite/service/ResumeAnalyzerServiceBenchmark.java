@@ -0,0 +1,77 @@
+package com.lockin.rewrite.service;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lockin.rewrite.bench.Fixtures;
+import com.lockin.rewrite.model.AnalysisResponse;
+import com.lockin.rewrite.model.resume.ResumeData;
+import io.micrometer.observation.ObservationRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** Post-processing of a recorded Gemini analysis (fenced JSON with markdown in the rewrites). */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResumeAnalyzerServiceBenchmark {
+
+    private ResumeAnalyzerService analyzer;
+    private String llmOutput;
+    private String resumeText;
+    private AnalysisResponse sanitized;
+    private List<ResumeData.BulletPoint> bullets;
+    private List<String> rawImproved;
+
+    @Setup
+    public void setUp() throws Exception {
+        // Parsing never reaches Gemini, the limiter or the cache
+        analyzer = new ResumeAnalyzerService(null, null, null, null, ObservationRegistry.NOOP);
+        llmOutput = Fixtures.text(Fixtures.GEMINI_ANALYSIS);
+        resumeText = Fixtures.text(Fixtures.RESUME);
+
+        // sanitizeResponse strips markdown in place, so keep the raw rewrites to restore before each call
+        sanitized = new ObjectMapper()
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+                .readValue(ResumeAnalyzerService.extractJsonBlock(llmOutput), AnalysisResponse.class);
+        bullets = new ArrayList<>();
+        sanitized.getResumeData().getExperience().forEach(experience -> bullets.addAll(experience.getBulletPoints()));
+        sanitized.getResumeData().getProjects().forEach(project -> bullets.addAll(project.getBulletPoints()));
+        rawImproved = bullets.stream().map(ResumeData.BulletPoint::getImproved).toList();
+    }
+
+    @Benchmark
+    public String extractJsonBlock() {
+        return ResumeAnalyzerService.extractJsonBlock(llmOutput);
+    }
+
+    /** extractJsonBlock, Jackson binding and sanitizeResponse: everything after the HTTP call. */
+    @Benchmark
+    public AnalysisResponse parseResponse() {
+        return analyzer.parseResponse(llmOutput, resumeText);
+    }
+
+    /** Includes restoring the markdown in each bullet, a few setter calls. */
+    @Benchmark
+    public AnalysisResponse sanitizeResponse() {
+        for (int i = 0; i < bullets.size(); i++) {
+            bullets.get(i).setImproved(rawImproved.get(i));
+        }
+        analyzer.sanitizeResponse(sanitized);
+        return sanitized;
+    }
+}
@@ -1,16 +1,22 @@
 package com.lockin.rewrite;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import java.util.Properties;
 
 import io.github.cdimascio.dotenv.Dotenv;
 
 @SpringBootApplication
 @EnableCaching
+@EnableScheduling
 public class LockInRewriteApplication {
 
+	private static final Logger log = LoggerFactory.getLogger(LockInRewriteApplication.class);
+
 	public static void main(String[] args) {
 		// Load .env.local from the root directory (../)
 		try {
@@ -21,9 +27,9 @@ public class LockInRewriteApplication {
 					.load();
 
 			dotenv.entries().forEach(entry -> System.setProperty(entry.getKey(), entry.getValue()));
-			System.out.println("Loaded environment variables from .env.local");
+			log.info("Loaded environment variables from .env.local");
 		} catch (Exception e) {
-			System.out.println("Could not load .env.local (might be in production or not found): " + e.getMessage());
+			log.info("Could not load .env.local (might be in production or not found): {}", e.getMessage());
 		}
 
 		SpringApplication.run(LockInRewriteApplication.class, args);
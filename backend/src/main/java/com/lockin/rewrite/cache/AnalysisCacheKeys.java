@@ -0,0 +1,56 @@
+package com.lockin.rewrite.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Fixed-size cache keys for the "analyses" cache, and for the separate
+ * "analysis-incr" cache holding incremental re-analyses.
+ *
+ * The key is a SHA-256 digest of the resume key and the job description, so a
+ * long JD never ends up verbatim in a Redis key.
+ */
+public final class AnalysisCacheKeys {
+
+    public static final String CACHE_NAME = "analyses";
+
+    // Derived from an earlier snapshot rather than a full analysis; never served as one
+    public static final String INCREMENTAL_CACHE_NAME = "analysis-incr";
+
+    private AnalysisCacheKeys() {
+    }
+
+    public static String of(String resumeKey, String jobDescription) {
+        return digest(resumeKey, jobDescription);
+    }
+
+    /**
+     * Key of the re-analysis of (resumeKey, jobDescription) derived from
+     * {@code baseAnalysisId}; never equal to a full analysis's key.
+     */
+    public static String incremental(String baseAnalysisId, String resumeKey, String jobDescription) {
+        return digest(INCREMENTAL_CACHE_NAME, baseAnalysisId, resumeKey, jobDescription);
+    }
+
+    public static String digest(String... parts) {
+        MessageDigest sha256 = sha256();
+        for (String part : parts) {
+            if (part != null) {
+                sha256.update(part.getBytes(StandardCharsets.UTF_8));
+            }
+            // Separator keeps ("ab", "c") and ("a", "bc") apart
+            sha256.update((byte) 0);
+        }
+        return HexFormat.of().formatHex(sha256.digest());
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
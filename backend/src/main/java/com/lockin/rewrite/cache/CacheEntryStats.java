@@ -0,0 +1,63 @@
+package com.lockin.rewrite.cache;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Running size statistics for the values a cache serializer writes and reads.
+ */
+public class CacheEntryStats {
+
+    private final LongAdder writes = new LongAdder();
+    private final LongAdder reads = new LongAdder();
+    private final LongAdder rawBytesWritten = new LongAdder();
+    private final LongAdder storedBytesWritten = new LongAdder();
+    private final LongAdder storedBytesRead = new LongAdder();
+    private final AtomicLong largestEntry = new AtomicLong();
+
+    public void recordWrite(int rawBytes, int storedBytes) {
+        writes.increment();
+        rawBytesWritten.add(rawBytes);
+        storedBytesWritten.add(storedBytes);
+        largestEntry.accumulateAndGet(storedBytes, Math::max);
+    }
+
+    public void recordRead(int storedBytes) {
+        reads.increment();
+        storedBytesRead.add(storedBytes);
+    }
+
+    public long getWrites() {
+        return writes.sum();
+    }
+
+    public long getReads() {
+        return reads.sum();
+    }
+
+    public long getRawBytesWritten() {
+        return rawBytesWritten.sum();
+    }
+
+    public long getStoredBytesWritten() {
+        return storedBytesWritten.sum();
+    }
+
+    public long getStoredBytesRead() {
+        return storedBytesRead.sum();
+    }
+
+    public long getLargestEntry() {
+        return largestEntry.get();
+    }
+
+    public double getAverageEntrySize() {
+        long count = writes.sum();
+        return count == 0 ? 0.0 : (double) storedBytesWritten.sum() / count;
+    }
+
+    public double getCompressionRatio() {
+        long stored = storedBytesWritten.sum();
+        return stored == 0 ? 0.0 : (double) rawBytesWritten.sum() / stored;
+    }
+}
@@ -0,0 +1,204 @@
+package com.lockin.rewrite.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.serializer.SerializationException;
+import org.springframework.data.redis.util.ByteUtils;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Two-tier cache: a bounded in-heap Caffeine L1 (W-TinyLFU, weighed by
+ * serialized size) in front of a shared Redis L2.
+ *
+ * Writes go to both tiers and are announced to the other nodes so they drop
+ * their L1 copy; reads fill L1 from L2 on the way back. Values held in L1 are
+ * shared between callers and must be treated as read-only.
+ */
+public class NearCache implements Cache {
+
+    private static final Logger log = LoggerFactory.getLogger(NearCache.class);
+
+    private final Cache l2;
+    private final com.github.benmanes.caffeine.cache.Cache<Object, Object> l1;
+    private final NearCacheManager manager;
+    private final LongAdder l2Hits = new LongAdder();
+    private final LongAdder l2Misses = new LongAdder();
+
+    NearCache(Cache l2, com.github.benmanes.caffeine.cache.Cache<Object, Object> l1, NearCacheManager manager) {
+        this.l2 = l2;
+        this.l1 = l1;
+        this.manager = manager;
+    }
+
+    @Override
+    public String getName() {
+        return l2.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return l2.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        Object local = l1.getIfPresent(key);
+        if (local != null) {
+            return new SimpleValueWrapper(local);
+        }
+        ValueWrapper remote = l2.get(key);
+        if (remote != null && remote.get() != null) {
+            l2Hits.increment();
+            l1.put(key, remote.get());
+        } else {
+            l2Misses.increment();
+        }
+        return remote;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException(
+                    "Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        Object local = l1.getIfPresent(key);
+        if (local != null) {
+            return (T) local;
+        }
+        T value = l2.get(key, valueLoader);
+        if (value != null) {
+            l1.put(key, value);
+        }
+        return value;
+    }
+
+    /**
+     * Looks up many keys at once: L1 first, then a single MGET against Redis
+     * for everything L1 did not have. Keys with no entry are absent from the
+     * result; an entry that cannot be deserialized is evicted and treated as
+     * missing. Falls back to one lookup per key if L2 is not a Redis cache.
+     */
+    public Map<String, Object> getAll(List<String> keys) {
+        Map<String, Object> found = new HashMap<>();
+        Set<String> missed = new LinkedHashSet<>();
+        for (String key : keys) {
+            Object local = l1.getIfPresent(key);
+            if (local != null) {
+                found.put(key, local);
+            } else {
+                missed.add(key);
+            }
+        }
+        List<String> remoteKeys = new ArrayList<>(missed);
+        if (remoteKeys.isEmpty()) {
+            return found;
+        }
+
+        if (!(l2 instanceof RedisCache redisCache)) {
+            for (String key : remoteKeys) {
+                ValueWrapper wrapper = get(key);
+                if (wrapper != null && wrapper.get() != null) {
+                    found.put(key, wrapper.get());
+                }
+            }
+            return found;
+        }
+
+        RedisCacheConfiguration config = redisCache.getCacheConfiguration();
+        String prefix = config.getKeyPrefixFor(getName());
+        byte[][] rawKeys = new byte[remoteKeys.size()][];
+        for (int i = 0; i < rawKeys.length; i++) {
+            rawKeys[i] = ByteUtils.getBytes(config.getKeySerializationPair().write(prefix + remoteKeys.get(i)));
+        }
+        List<byte[]> rawValues = manager.multiGet(rawKeys);
+        for (int i = 0; i < rawKeys.length; i++) {
+            byte[] raw = rawValues != null ? rawValues.get(i) : null;
+            if (raw == null) {
+                l2Misses.increment();
+                continue;
+            }
+            Object value;
+            try {
+                value = config.getValueSerializationPair().read(ByteBuffer.wrap(raw));
+            } catch (SerializationException e) {
+                // One unreadable entry is a miss for that key, not a failed batch
+                log.warn("Evicting unreadable entry {} from cache {}: {}", remoteKeys.get(i), getName(), e.getMessage());
+                l2.evict(remoteKeys.get(i));
+                l2Misses.increment();
+                continue;
+            }
+            if (value != null) {
+                l2Hits.increment();
+                l1.put(remoteKeys.get(i), value);
+                found.put(remoteKeys.get(i), value);
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        l2.put(key, value);
+        if (value != null) {
+            l1.put(key, value);
+        }
+        manager.publishEviction(getName(), key);
+    }
+
+    @Override
+    public void evict(Object key) {
+        l2.evict(key);
+        l1.invalidate(key);
+        manager.publishEviction(getName(), key);
+    }
+
+    @Override
+    public void clear() {
+        l2.clear();
+        l1.invalidateAll();
+        manager.publishClear(getName());
+    }
+
+    /** Drops a key from this node's L1 only; used for remote invalidations. */
+    void evictLocal(Object key) {
+        l1.invalidate(key);
+    }
+
+    /** Drops this node's whole L1 only; used for remote invalidations. */
+    void clearLocal() {
+        l1.invalidateAll();
+    }
+
+    public TierStats getLocalStats() {
+        com.github.benmanes.caffeine.cache.stats.CacheStats stats = l1.stats();
+        return new TierStats(stats.hitCount(), stats.missCount(), stats.evictionCount(), l1.estimatedSize());
+    }
+
+    public TierStats getRemoteStats() {
+        // Redis evicts on TTL/maxmemory on its own; we can't observe it from here
+        return new TierStats(l2Hits.sum(), l2Misses.sum(), -1, -1);
+    }
+}
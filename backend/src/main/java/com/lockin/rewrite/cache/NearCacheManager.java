@@ -0,0 +1,114 @@
+package com.lockin.rewrite.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache manager that puts a {@link NearCache} L1 in front of selected caches
+ * of a Redis-backed delegate and keeps the L1s of all nodes coherent through
+ * Redis pub/sub. Caches that were not registered are served by the delegate
+ * unchanged.
+ *
+ * Near-cached caches must use String keys, since keys travel over the
+ * invalidation channel as text.
+ */
+public class NearCacheManager implements CacheManager, MessageListener {
+
+    private static final Logger log = LoggerFactory.getLogger(NearCacheManager.class);
+
+    private static final String OP_EVICT = "E";
+    private static final String OP_CLEAR = "C";
+
+    private final CacheManager delegate;
+    private final StringRedisTemplate redisTemplate;
+    private final String channel;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Map<String, NearCache> nearCaches = new ConcurrentHashMap<>();
+
+    public NearCacheManager(CacheManager delegate, StringRedisTemplate redisTemplate, String channel) {
+        this.delegate = delegate;
+        this.redisTemplate = redisTemplate;
+        this.channel = channel;
+    }
+
+    public void registerNearCache(String name, Caffeine<Object, Object> localSpec) {
+        Cache remote = delegate.getCache(name);
+        if (remote == null) {
+            throw new IllegalArgumentException("No remote cache named " + name);
+        }
+        nearCaches.put(name, new NearCache(remote, localSpec.recordStats().build(), this));
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        NearCache near = nearCaches.get(name);
+        return near != null ? near : delegate.getCache(name);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return delegate.getCacheNames();
+    }
+
+    public Map<String, NearCache> getNearCaches() {
+        return nearCaches;
+    }
+
+    public String getChannel() {
+        return channel;
+    }
+
+    /** One MGET round trip; missing keys come back as null. */
+    List<byte[]> multiGet(byte[][] keys) {
+        return redisTemplate.execute((RedisCallback<List<byte[]>>) connection -> connection.stringCommands().mGet(keys));
+    }
+
+    void publishEviction(String cacheName, Object key) {
+        publish(OP_EVICT, cacheName, String.valueOf(key));
+    }
+
+    void publishClear(String cacheName) {
+        publish(OP_CLEAR, cacheName, "");
+    }
+
+    private void publish(String op, String cacheName, String key) {
+        try {
+            redisTemplate.convertAndSend(channel, String.join("|", nodeId, op, cacheName, key));
+        } catch (DataAccessException e) {
+            // Remote L1s fall back to their own expiry if a message is lost
+            log.warn("Failed to publish cache invalidation for {}: {}", cacheName, e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\\|", 4);
+        if (parts.length < 4 || nodeId.equals(parts[0])) {
+            return;
+        }
+        NearCache near = nearCaches.get(parts[2]);
+        if (near == null) {
+            return;
+        }
+        if (OP_CLEAR.equals(parts[1])) {
+            near.clearLocal();
+        } else {
+            near.evictLocal(parts[3]);
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.lockin.rewrite.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Cache of rendered PDFs keyed by a digest of the LaTeX source.
+ *
+ * L1 is an in-heap Caffeine cache bounded by total PDF bytes; L2 is a
+ * directory of {@code <key>.pdf} files bounded by total bytes, trimmed
+ * least-recently-used first (hits refresh a file's modification time). Disk
+ * entries survive restarts and are shared by every worker on the host.
+ */
+public class PdfRenderCache {
+
+    private static final Logger log = LoggerFactory.getLogger(PdfRenderCache.class);
+
+    private static final String SUFFIX = ".pdf";
+
+    private final Cache<String, byte[]> l1;
+    private final Path dir;
+    private final long diskMaxBytes;
+    private final AtomicLong diskBytes = new AtomicLong();
+    private final AtomicLong diskEntries = new AtomicLong();
+    private final LongAdder diskHits = new LongAdder();
+    private final LongAdder diskMisses = new LongAdder();
+    private final LongAdder diskEvictions = new LongAdder();
+
+    public PdfRenderCache(long localMaxBytes, Path dir, long diskMaxBytes) throws IOException {
+        this.l1 = Caffeine.newBuilder()
+                .maximumWeight(localMaxBytes)
+                .weigher((String key, byte[] pdf) -> pdf.length)
+                .recordStats()
+                .build();
+        this.dir = Files.createDirectories(dir);
+        this.diskMaxBytes = diskMaxBytes;
+        try (Stream<Path> files = Files.list(this.dir)) {
+            for (Path file : files.filter(PdfRenderCache::isEntry).toList()) {
+                diskBytes.addAndGet(Files.size(file));
+                diskEntries.incrementAndGet();
+            }
+        }
+    }
+
+    /** The cached PDF for {@code key}, or null. */
+    public byte[] get(String key) {
+        byte[] pdf = l1.getIfPresent(key);
+        if (pdf != null) {
+            return pdf;
+        }
+        Path file = dir.resolve(key + SUFFIX);
+        try {
+            pdf = Files.readAllBytes(file);
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            // Not there, or evicted between read and touch; either way a miss
+            diskMisses.increment();
+            return null;
+        }
+        diskHits.increment();
+        l1.put(key, pdf);
+        return pdf;
+    }
+
+    public void put(String key, byte[] pdf) {
+        l1.put(key, pdf);
+        store(key, pdf.length, tmp -> Files.write(tmp, pdf));
+    }
+
+    /**
+     * The on-disk copy of {@code key}, or null; lets callers stream a cached
+     * PDF without loading it. The file may be trimmed at any time, so open it
+     * promptly and treat a missing file as a miss.
+     */
+    public Path getFile(String key) {
+        Path file = dir.resolve(key + SUFFIX);
+        try {
+            // A hit counts as a use for LRU trimming, as in get
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            diskMisses.increment();
+            return null;
+        }
+        diskHits.increment();
+        return file;
+    }
+
+    /**
+     * Copies a rendered PDF into the disk tier only, without reading it into
+     * the heap. Returns the cached file, or null if it could not be written.
+     */
+    public Path putFile(String key, Path pdf) throws IOException {
+        long size = Files.size(pdf);
+        return store(key, size, tmp -> Files.copy(pdf, tmp, StandardCopyOption.REPLACE_EXISTING));
+    }
+
+    private Path store(String key, long size, Writer writer) {
+        Path file = dir.resolve(key + SUFFIX);
+        if (Files.exists(file)) {
+            return file;
+        }
+        Path tmp = null;
+        try {
+            // Write then publish, so readers never see a partial PDF. A rename would
+            // silently replace a concurrent writer's entry and count it twice; a hard
+            // link only succeeds for whoever publishes first.
+            tmp = Files.createTempFile(dir, key, ".tmp");
+            writer.write(tmp);
+            Files.createLink(file, tmp);
+        } catch (FileAlreadyExistsException e) {
+            // Same key, same bytes: the other writer's entry is already accounted for
+            deleteQuietly(tmp);
+            return file;
+        } catch (IOException e) {
+            // The render itself succeeded; losing the disk copy only costs a future recompile
+            log.warn("Failed to write render cache entry {}: {}", key, e.getMessage());
+            deleteQuietly(tmp);
+            return null;
+        }
+        deleteQuietly(tmp);
+        diskEntries.incrementAndGet();
+        if (diskBytes.addAndGet(size) > diskMaxBytes) {
+            trimDisk();
+        }
+        return file;
+    }
+
+    @FunctionalInterface
+    private interface Writer {
+        void write(Path target) throws IOException;
+    }
+
+    public TierStats getLocalStats() {
+        com.github.benmanes.caffeine.cache.stats.CacheStats stats = l1.stats();
+        return new TierStats(stats.hitCount(), stats.missCount(), stats.evictionCount(), l1.estimatedSize());
+    }
+
+    public TierStats getDiskStats() {
+        return new TierStats(diskHits.sum(), diskMisses.sum(), diskEvictions.sum(), diskEntries.get());
+    }
+
+    public long getDiskBytes() {
+        return diskBytes.get();
+    }
+
+    private synchronized void trimDisk() {
+        if (diskBytes.get() <= diskMaxBytes) {
+            return;
+        }
+        // Trim to 90% so a full cache doesn't rescan the directory on every put
+        long target = diskMaxBytes / 10 * 9;
+        List<Path> oldestFirst;
+        try (Stream<Path> files = Files.list(dir)) {
+            oldestFirst = files.filter(PdfRenderCache::isEntry)
+                    .sorted(Comparator.comparing(PdfRenderCache::lastModified))
+                    .toList();
+        } catch (IOException e) {
+            log.warn("Failed to list render cache directory: {}", e.getMessage());
+            return;
+        }
+        for (Path file : oldestFirst) {
+            if (diskBytes.get() <= target) {
+                break;
+            }
+            try {
+                long size = Files.size(file);
+                if (Files.deleteIfExists(file)) {
+                    diskBytes.addAndGet(-size);
+                    diskEntries.decrementAndGet();
+                    diskEvictions.increment();
+                }
+            } catch (IOException e) {
+                // Already gone or in use; try the next one
+            }
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            // Left for the OS to clean up with the temp directory
+        }
+    }
+
+    private static boolean isEntry(Path file) {
+        return file.getFileName().toString().endsWith(SUFFIX);
+    }
+
+    private static FileTime lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.lockin.rewrite.cache;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+
+/**
+ * Redis value serializer that writes Jackson Smile (binary JSON) and LZ4
+ * compresses anything above a size threshold.
+ *
+ * Layout: one format byte, then either the Smile payload as-is
+ * ({@link #FORMAT_PLAIN}) or a 4-byte big-endian uncompressed length followed
+ * by the LZ4 block ({@link #FORMAT_LZ4}).
+ */
+public class SmileLz4RedisSerializer<T> implements RedisSerializer<T> {
+
+    private static final byte FORMAT_PLAIN = 0;
+    private static final byte FORMAT_LZ4 = 1;
+    private static final int LZ4_HEADER = 5;
+
+    private static final ObjectMapper SMILE_MAPPER = SmileMapper.builder()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+            .build();
+
+    private final ObjectReader reader;
+    private final ObjectWriter writer;
+    private final int compressionThreshold;
+    private final LZ4Compressor compressor;
+    private final LZ4FastDecompressor decompressor;
+    private final CacheEntryStats stats;
+    // Smile size of the value this thread last wrote or read, so a local cache
+    // filled right after the Redis round trip can weigh it without re-encoding
+    private final ThreadLocal<SizedValue> lastSized = new ThreadLocal<>();
+
+    public SmileLz4RedisSerializer(Class<T> type, int compressionThreshold, CacheEntryStats stats) {
+        this.reader = SMILE_MAPPER.readerFor(type);
+        this.writer = SMILE_MAPPER.writerFor(type);
+        this.compressionThreshold = compressionThreshold;
+        LZ4Factory factory = LZ4Factory.fastestInstance();
+        this.compressor = factory.fastCompressor();
+        this.decompressor = factory.fastDecompressor();
+        this.stats = stats;
+    }
+
+    @Override
+    public byte[] serialize(T value) throws SerializationException {
+        if (value == null) {
+            return new byte[0];
+        }
+        byte[] smile;
+        try {
+            smile = writer.writeValueAsBytes(value);
+        } catch (IOException e) {
+            throw new SerializationException("Could not write Smile value", e);
+        }
+
+        byte[] stored;
+        if (smile.length < compressionThreshold) {
+            stored = new byte[smile.length + 1];
+            stored[0] = FORMAT_PLAIN;
+            System.arraycopy(smile, 0, stored, 1, smile.length);
+        } else {
+            byte[] buffer = new byte[LZ4_HEADER + compressor.maxCompressedLength(smile.length)];
+            buffer[0] = FORMAT_LZ4;
+            writeInt(buffer, 1, smile.length);
+            int compressedLength = compressor.compress(smile, 0, smile.length, buffer, LZ4_HEADER,
+                    buffer.length - LZ4_HEADER);
+            stored = Arrays.copyOf(buffer, LZ4_HEADER + compressedLength);
+        }
+
+        stats.recordWrite(smile.length, stored.length);
+        remember(value, smile.length);
+        return stored;
+    }
+
+    /**
+     * Uncompressed Smile size of {@code value} for weighing entries of a
+     * size-bounded local cache. Reuses the size from this thread's last
+     * {@link #serialize}/{@link #deserialize} of the same instance, and only
+     * encodes the value again if there is none.
+     */
+    public int weightOf(T value) {
+        SizedValue last = lastSized.get();
+        if (last != null && value != null && last.value().get() == value) {
+            lastSized.remove();
+            return last.size();
+        }
+        return sizeOf(value);
+    }
+
+    /**
+     * Uncompressed Smile size of {@code value}, computed without buffering the
+     * encoded bytes.
+     */
+    public int sizeOf(T value) {
+        if (value == null) {
+            return 0;
+        }
+        CountingOutputStream counter = new CountingOutputStream();
+        try {
+            writer.writeValue(counter, value);
+        } catch (IOException e) {
+            throw new SerializationException("Could not size Smile value", e);
+        }
+        return (int) Math.min(Integer.MAX_VALUE, counter.count);
+    }
+
+    @Override
+    public T deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        stats.recordRead(bytes.length);
+        try {
+            if (bytes[0] == FORMAT_PLAIN) {
+                T value = reader.readValue(bytes, 1, bytes.length - 1);
+                remember(value, bytes.length - 1);
+                return value;
+            }
+            if (bytes[0] == FORMAT_LZ4) {
+                int rawLength = readInt(bytes, 1);
+                byte[] smile = decompressor.decompress(bytes, LZ4_HEADER, rawLength);
+                T value = reader.readValue(smile);
+                remember(value, rawLength);
+                return value;
+            }
+        } catch (IOException | RuntimeException e) {
+            throw new SerializationException("Could not read cached value", e);
+        }
+        throw new SerializationException("Unknown cache value format: " + bytes[0]);
+    }
+
+    private void remember(T value, int size) {
+        if (value != null) {
+            lastSized.set(new SizedValue(new WeakReference<>(value), size));
+        }
+    }
+
+    private record SizedValue(WeakReference<Object> value, int size) {
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+
+    private static void writeInt(byte[] buffer, int offset, int value) {
+        buffer[offset] = (byte) (value >>> 24);
+        buffer[offset + 1] = (byte) (value >>> 16);
+        buffer[offset + 2] = (byte) (value >>> 8);
+        buffer[offset + 3] = (byte) value;
+    }
+
+    private static int readInt(byte[] buffer, int offset) {
+        return ((buffer[offset] & 0xFF) << 24)
+                | ((buffer[offset + 1] & 0xFF) << 16)
+                | ((buffer[offset + 2] & 0xFF) << 8)
+                | (buffer[offset + 3] & 0xFF);
+    }
+}
@@ -0,0 +1,38 @@
+package com.lockin.rewrite.config;
+
+import io.micrometer.context.ContextExecutorService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+@Configuration
+public class AsyncConfig {
+
+    /**
+     * Executor for the S3 -> parse -> Gemini pipeline. Virtual threads park
+     * cheaply while waiting on S3/Redis/Gemini, so thousands of analyses can be
+     * in flight without tying up Tomcat's request threads.
+     *
+     * Tasks run with the submitter's context (current observation/span and
+     * request id), so their spans and log lines join the request's trace.
+     */
+    @Bean(destroyMethod = "close")
+    public ExecutorService analysisExecutor() {
+        return ContextExecutorService.wrap(
+                Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("analysis-", 0).factory()));
+    }
+
+    /**
+     * CPU-bound PDF page-range extraction. Kept apart from the common pool so
+     * a burst of long PDFs can't starve parallel streams elsewhere, and sized
+     * to the cores (0) by default since the work never blocks on I/O.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ForkJoinPool pdfExtractionPool(@Value("${resume.pdf.parallelism:0}") int parallelism) {
+        return new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+}
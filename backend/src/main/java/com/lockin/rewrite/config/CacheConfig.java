@@ -0,0 +1,104 @@
+package com.lockin.rewrite.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.lockin.rewrite.cache.AnalysisCacheKeys;
+import com.lockin.rewrite.cache.CacheEntryStats;
+import com.lockin.rewrite.cache.NearCacheManager;
+import com.lockin.rewrite.cache.PdfRenderCache;
+import com.lockin.rewrite.cache.SmileLz4RedisSerializer;
+import com.lockin.rewrite.model.AnalysisResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+
+@Configuration
+public class CacheConfig {
+
+    @Value("${cache.analyses.ttl:24h}")
+    private Duration analysesTtl;
+
+    @Value("${cache.analyses.compression-threshold:512}")
+    private int compressionThreshold;
+
+    @Value("${cache.analyses.local.max-bytes:67108864}")
+    private long localMaxBytes;
+
+    @Value("${cache.analyses.local.ttl:10m}")
+    private Duration localTtl;
+
+    @Value("${cache.invalidation.channel:cache-invalidation}")
+    private String invalidationChannel;
+
+    @Value("${render.cache.local.max-bytes:33554432}")
+    private long renderLocalMaxBytes;
+
+    @Value("${render.cache.disk.dir:}")
+    private String renderDiskDir;
+
+    @Value("${render.cache.disk.max-bytes:1073741824}")
+    private long renderDiskMaxBytes;
+
+    @Bean
+    public PdfRenderCache pdfRenderCache() throws IOException {
+        Path dir = renderDiskDir.isBlank()
+                ? Path.of(System.getProperty("java.io.tmpdir"), "rewrite-pdf-cache")
+                : Path.of(renderDiskDir);
+        return new PdfRenderCache(renderLocalMaxBytes, dir, renderDiskMaxBytes);
+    }
+
+    @Bean
+    public CacheEntryStats analysisCacheStats() {
+        return new CacheEntryStats();
+    }
+
+    @Bean
+    public SmileLz4RedisSerializer<AnalysisResponse> analysisSerializer(CacheEntryStats analysisCacheStats) {
+        return new SmileLz4RedisSerializer<>(AnalysisResponse.class, compressionThreshold, analysisCacheStats);
+    }
+
+    @Bean
+    public NearCacheManager cacheManager(RedisConnectionFactory connectionFactory,
+            StringRedisTemplate redisTemplate,
+            SmileLz4RedisSerializer<AnalysisResponse> analysisSerializer) {
+        // L2: keys are already fixed-size digests (see AnalysisCacheKeys); values go
+        // out as LZ4-compressed Smile instead of JDK serialization.
+        RedisCacheConfiguration analyses = RedisCacheConfiguration.defaultCacheConfig()
+                .entryTtl(analysesTtl)
+                .disableCachingNullValues()
+                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(analysisSerializer));
+
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(connectionFactory)
+                .withCacheConfiguration(AnalysisCacheKeys.CACHE_NAME, analyses)
+                .withCacheConfiguration(AnalysisCacheKeys.INCREMENTAL_CACHE_NAME, analyses)
+                .build();
+        redisCacheManager.afterPropertiesSet();
+
+        // L1: size-aware W-TinyLFU, so one-off scans don't flush the popular pairs
+        NearCacheManager cacheManager = new NearCacheManager(redisCacheManager, redisTemplate, invalidationChannel);
+        cacheManager.registerNearCache(AnalysisCacheKeys.CACHE_NAME, Caffeine.newBuilder()
+                .maximumWeight(localMaxBytes)
+                .weigher((Object key, Object value) -> analysisSerializer.weightOf((AnalysisResponse) value))
+                .expireAfterWrite(localTtl));
+        return cacheManager;
+    }
+
+    @Bean
+    public RedisMessageListenerContainer cacheInvalidationListener(RedisConnectionFactory connectionFactory,
+            NearCacheManager cacheManager) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(cacheManager, new ChannelTopic(cacheManager.getChannel()));
+        return container;
+    }
+}
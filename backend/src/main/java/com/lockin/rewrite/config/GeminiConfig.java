@@ -0,0 +1,32 @@
+package com.lockin.rewrite.config;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+
+@Configuration
+public class GeminiConfig {
+
+    @Value("${gemini.http.connect-timeout:5s}")
+    private Duration connectTimeout;
+
+    /**
+     * One shared client for all Gemini traffic: it keeps connections alive
+     * between calls and multiplexes concurrent requests over a single HTTP/2
+     * connection, so TLS setup is paid once rather than per analysis.
+     */
+    @Bean(destroyMethod = "close")
+    public HttpClient geminiHttpClient(@Qualifier("analysisExecutor") ExecutorService analysisExecutor) {
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(connectTimeout)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .executor(analysisExecutor)
+                .build();
+    }
+}
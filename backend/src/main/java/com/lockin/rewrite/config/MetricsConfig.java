@@ -0,0 +1,148 @@
+package com.lockin.rewrite.config;
+
+import com.lockin.rewrite.cache.AnalysisCacheKeys;
+import com.lockin.rewrite.cache.CacheEntryStats;
+import com.lockin.rewrite.cache.NearCache;
+import com.lockin.rewrite.cache.NearCacheManager;
+import com.lockin.rewrite.cache.PdfRenderCache;
+import com.lockin.rewrite.cache.TierStats;
+import com.lockin.rewrite.service.AnalysisJobService;
+import com.lockin.rewrite.service.AnalysisSingleFlightService;
+import com.lockin.rewrite.service.GeminiRateLimiter;
+import com.lockin.rewrite.service.TectonicWorkerPool;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.function.Function;
+
+/**
+ * Exposes the counters the pipeline already keeps (limiter, single-flight,
+ * jobs, Tectonic pool, cache tiers) as meters, so /actuator/prometheus shows
+ * the same numbers as /api/cache/stats and /api/render/stats. Stage timings
+ * are recorded where the work happens, as observations.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public MeterBinder pipelineMetrics(GeminiRateLimiter rateLimiter,
+            AnalysisSingleFlightService analysisSingleFlightService,
+            AnalysisJobService analysisJobService,
+            TectonicWorkerPool tectonicWorkerPool) {
+        return registry -> {
+            Gauge.builder("gemini.requests.in.flight", rateLimiter, GeminiRateLimiter::getInFlight)
+                    .description("Gemini calls admitted by the limiter and not yet finished")
+                    .register(registry);
+            Gauge.builder("gemini.requests.queued", rateLimiter, GeminiRateLimiter::getQueued)
+                    .description("Gemini calls waiting for admission")
+                    .register(registry);
+            Gauge.builder("gemini.concurrency.limit", rateLimiter, GeminiRateLimiter::getLimit)
+                    .description("Current adaptive concurrency limit")
+                    .register(registry);
+            FunctionCounter.builder("gemini.rate.limited", rateLimiter, GeminiRateLimiter::getRateLimitedCount)
+                    .description("429 responses from Gemini")
+                    .register(registry);
+            FunctionCounter.builder("gemini.rejected", rateLimiter, GeminiRateLimiter::getRejectedCount)
+                    .description("Calls shed because the limiter queue was full")
+                    .register(registry);
+            FunctionCounter.builder("gemini.queue.timed.out", rateLimiter, GeminiRateLimiter::getTimedOutCount)
+                    .description("Calls shed after waiting longer than max-queue-wait for admission")
+                    .register(registry);
+
+            Gauge.builder("analysis.in.flight", analysisSingleFlightService, AnalysisSingleFlightService::getInFlight)
+                    .description("Distinct analyses running on this instance")
+                    .register(registry);
+            Gauge.builder("analysis.jobs.in.flight", analysisJobService, AnalysisJobService::getInFlight)
+                    .description("Async analysis jobs not yet finished")
+                    .register(registry);
+
+            Gauge.builder("latex.workers", tectonicWorkerPool, TectonicWorkerPool::getPoolSize)
+                    .register(registry);
+            Gauge.builder("latex.workers.idle", tectonicWorkerPool, TectonicWorkerPool::getIdleWorkers)
+                    .register(registry);
+            Gauge.builder("latex.queue.size", tectonicWorkerPool, TectonicWorkerPool::getQueued)
+                    .description("Renders waiting for a worker")
+                    .register(registry);
+            FunctionCounter.builder("latex.rejected", tectonicWorkerPool, TectonicWorkerPool::getRejectedCount)
+                    .description("Renders shed by the bulkhead")
+                    .tag("reason", "queue_full")
+                    .register(registry);
+            FunctionCounter.builder("latex.rejected", tectonicWorkerPool, TectonicWorkerPool::getQueueTimeoutCount)
+                    .description("Renders shed by the bulkhead")
+                    .tag("reason", "queue_timeout")
+                    .register(registry);
+            FunctionCounter.builder("latex.process.timeouts", tectonicWorkerPool,
+                            TectonicWorkerPool::getProcessTimeoutCount)
+                    .description("Tectonic processes killed for overrunning the timeout")
+                    .register(registry);
+        };
+    }
+
+    /**
+     * Hits and misses per tier as {@code cache.gets}, like Micrometer's own
+     * cache binders, so hit ratios can be taken over any window; the lifetime
+     * ratio is also published directly as {@code cache.hit.ratio}.
+     */
+    @Bean
+    public MeterBinder cacheMetrics(NearCacheManager cacheManager, PdfRenderCache pdfRenderCache,
+            CacheEntryStats analysisCacheStats) {
+        return registry -> {
+            NearCache analyses = cacheManager.getNearCaches().get(AnalysisCacheKeys.CACHE_NAME);
+            tier(registry, AnalysisCacheKeys.CACHE_NAME, "l1", analyses, NearCache::getLocalStats);
+            tier(registry, AnalysisCacheKeys.CACHE_NAME, "l2", analyses, NearCache::getRemoteStats);
+            tier(registry, "renders", "l1", pdfRenderCache, PdfRenderCache::getLocalStats);
+            tier(registry, "renders", "disk", pdfRenderCache, PdfRenderCache::getDiskStats);
+            Gauge.builder("cache.disk.size", pdfRenderCache, PdfRenderCache::getDiskBytes)
+                    .tag("cache", "renders")
+                    .baseUnit("bytes")
+                    .register(registry);
+
+            FunctionCounter.builder("cache.entries.written", analysisCacheStats, CacheEntryStats::getRawBytesWritten)
+                    .description("Bytes of analyses written to Redis, before and after compression")
+                    .tag("cache", AnalysisCacheKeys.CACHE_NAME)
+                    .tag("form", "raw")
+                    .baseUnit("bytes")
+                    .register(registry);
+            FunctionCounter.builder("cache.entries.written", analysisCacheStats,
+                            CacheEntryStats::getStoredBytesWritten)
+                    .description("Bytes of analyses written to Redis, before and after compression")
+                    .tag("cache", AnalysisCacheKeys.CACHE_NAME)
+                    .tag("form", "stored")
+                    .baseUnit("bytes")
+                    .register(registry);
+        };
+    }
+
+    /**
+     * Meters only hold their state object weakly, so they are registered on
+     * the cache itself (a singleton) rather than on a stats-reading lambda.
+     */
+    private static <T> void tier(MeterRegistry registry, String cache, String tier, T owner,
+            Function<T, TierStats> stats) {
+        FunctionCounter.builder("cache.gets", owner, o -> stats.apply(o).getHits())
+                .tags("cache", cache, "tier", tier, "result", "hit")
+                .register(registry);
+        FunctionCounter.builder("cache.gets", owner, o -> stats.apply(o).getMisses())
+                .tags("cache", cache, "tier", tier, "result", "miss")
+                .register(registry);
+        Gauge.builder("cache.hit.ratio", owner, o -> stats.apply(o).getHitRatio())
+                .tags("cache", cache, "tier", tier)
+                .register(registry);
+        // Tiers report -1 for what they can't observe; leave those meters out
+        TierStats current = stats.apply(owner);
+        if (current.getEvictions() >= 0) {
+            FunctionCounter.builder("cache.evictions", owner, o -> stats.apply(o).getEvictions())
+                    .tags("cache", cache, "tier", tier)
+                    .register(registry);
+        }
+        if (current.getSize() >= 0) {
+            Gauge.builder("cache.size", owner, o -> stats.apply(o).getSize())
+                    .tags("cache", cache, "tier", tier)
+                    .register(registry);
+        }
+    }
+}
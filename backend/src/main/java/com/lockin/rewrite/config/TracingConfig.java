@@ -0,0 +1,35 @@
+package com.lockin.rewrite.config;
+
+import io.micrometer.context.ContextRegistry;
+import io.micrometer.context.integration.Slf4jThreadLocalAccessor;
+import io.opentelemetry.exporter.logging.otlp.OtlpJsonLoggingSpanExporter;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Tracing: every observation (HTTP request, S3, parse, prompt, Gemini queue
+ * and call, LaTeX queue and compile) is also an OpenTelemetry span through
+ * the Micrometer bridge, batched and exported off the request threads.
+ *
+ * Spans always go to the local span log as OTLP JSON (one export batch per
+ * line, see logback-spring.xml), which any OTLP tool can import; setting
+ * {@code management.otlp.tracing.endpoint} additionally ships them to a
+ * collector over OTLP/HTTP.
+ */
+@Configuration
+public class TracingConfig {
+
+    public TracingConfig() {
+        // Carry the request id across executors along with the current span
+        ContextRegistry.getInstance().registerThreadLocalAccessor(
+                new Slf4jThreadLocalAccessor(RequestIdFilter.MDC_KEY));
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "tracing.export.file.enabled", havingValue = "true", matchIfMissing = true)
+    public SpanExporter fileSpanExporter() {
+        return OtlpJsonLoggingSpanExporter.create();
+    }
+}
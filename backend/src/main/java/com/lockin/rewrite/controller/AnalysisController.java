@@ -1,47 +1,68 @@
 package com.lockin.rewrite.controller;
 
+import com.lockin.rewrite.model.Analysis;
 import com.lockin.rewrite.model.AnalysisResponse;
-import com.lockin.rewrite.service.DocumentParserService;
-import com.lockin.rewrite.service.ResumeAnalyzerService;
+import com.lockin.rewrite.model.Suggestion;
+import com.lockin.rewrite.service.AnalysisBatchService;
+import com.lockin.rewrite.service.AnalysisPipelineService;
+import com.lockin.rewrite.service.AnalysisStreamListener;
+import com.lockin.rewrite.service.BulletRewriteService;
+import com.lockin.rewrite.service.DocumentRejectedException;
+import com.lockin.rewrite.service.GeminiOverloadedException;
+import com.lockin.rewrite.service.RenderOverloadedException;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import software.amazon.awssdk.core.ResponseBytes;
-import software.amazon.awssdk.services.s3.S3Client;
-import software.amazon.awssdk.services.s3.model.GetObjectRequest;
-import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @RestController
 @RequestMapping("/api")
 @CrossOrigin(origins = "http://localhost:3000")
 public class AnalysisController {
 
-    private final S3Client s3Client;
-    private final DocumentParserService documentParserService;
-    private final ResumeAnalyzerService resumeAnalyzerService;
+    private static final Logger log = LoggerFactory.getLogger(AnalysisController.class);
 
-    // We'll need a simple utility to extract JD keywords as well
-    // For now, let's implement a basic keyword extraction within the controller or
-    // a util
-    // reusing the logic from the node app (using a simple set of tech words)
-
-    private final String bucketName;
+    private final AnalysisPipelineService analysisPipelineService;
+    private final AnalysisBatchService analysisBatchService;
+    private final BulletRewriteService bulletRewriteService;
     private final com.lockin.rewrite.service.LatexService latexService;
+    private final ExecutorService analysisExecutor;
+    private final Duration streamTimeout;
+    private final int maxBatchSize;
+    private final int maxRewriteBullets;
 
-    public AnalysisController(S3Client s3Client,
-            DocumentParserService documentParserService,
-            ResumeAnalyzerService resumeAnalyzerService,
+    public AnalysisController(AnalysisPipelineService analysisPipelineService,
+            AnalysisBatchService analysisBatchService,
+            BulletRewriteService bulletRewriteService,
             com.lockin.rewrite.service.LatexService latexService,
-            @org.springframework.beans.factory.annotation.Value("${aws.s3.bucketName}") String bucketName) {
-        this.s3Client = s3Client;
-        this.documentParserService = documentParserService;
-        this.resumeAnalyzerService = resumeAnalyzerService;
+            @Qualifier("analysisExecutor") ExecutorService analysisExecutor,
+            @Value("${analysis.stream-timeout:2m}") Duration streamTimeout,
+            @Value("${analysis.batch.max-size:20}") int maxBatchSize,
+            @Value("${rewrite.max-bullets:100}") int maxRewriteBullets) {
+        this.analysisPipelineService = analysisPipelineService;
+        this.analysisBatchService = analysisBatchService;
+        this.bulletRewriteService = bulletRewriteService;
         this.latexService = latexService;
-        this.bucketName = bucketName;
+        this.analysisExecutor = analysisExecutor;
+        this.streamTimeout = streamTimeout;
+        this.maxBatchSize = maxBatchSize;
+        this.maxRewriteBullets = maxRewriteBullets;
     }
 
     @PostMapping("/process")
@@ -54,54 +75,252 @@ public class AnalysisController {
                 return ResponseEntity.badRequest().body(Map.of("error", "Resume and JD are required"));
             }
 
-            // 1. Download Resume from S3
-            // Note: We use the S3Client directly here to get the bytes
-            ResponseBytes<GetObjectResponse> objectBytes = s3Client.getObjectAsBytes(GetObjectRequest.builder()
-                    .bucket(bucketName)
-                    .key(resumeKey)
-                    .build());
+            // mode=fast: local BM25 scoring only; minScore: skip the LLM below that local score
+            String mode = payload.getOrDefault("mode", "full");
+            if (!mode.equals("full") && !mode.equals("fast")) {
+                return ResponseEntity.badRequest().body(Map.of("error", "mode must be 'full' or 'fast'"));
+            }
+            Double minScore;
+            try {
+                minScore = payload.get("minScore") != null ? Double.valueOf(payload.get("minScore")) : null;
+            } catch (NumberFormatException e) {
+                return ResponseEntity.badRequest().body(Map.of("error", "minScore must be a number"));
+            }
 
-            byte[] fileData = objectBytes.asByteArray();
+            // baseAnalysisId: analysisId of an earlier result for an edited resume/JD; only the changes are re-analyzed
+            String baseAnalysisId = payload.get("baseAnalysisId");
 
-            // 2. Parse DOCX
-            // 2. Parse File based on extension
-            String resumeText;
-            if (resumeKey.toLowerCase().endsWith(".pdf")) {
-                resumeText = documentParserService.parsePdf(fileData);
+            AnalysisResponse result;
+            if (mode.equals("fast")) {
+                result = analysisPipelineService.processFast(resumeKey, jobDescription);
+            } else if (baseAnalysisId != null && !baseAnalysisId.isBlank()) {
+                result = analysisPipelineService.processIncremental(resumeKey, jobDescription, baseAnalysisId);
             } else {
-                resumeText = documentParserService.parseDocx(fileData);
+                result = analysisPipelineService.process(resumeKey, jobDescription, minScore);
             }
 
-            // 3. Extract Keywords (Simplified version for now, relying on LLM for heavy
-            // lifting usually,
-            // but the frontend logic did a pre-check. Let's pass empty list to LLM for now
-            // and let it decide,
-            // or implement the keyword extractor. For speed, let's pass empty list or
-            // implement a basic one.)
-            List<String> missingKeywords = new ArrayList<>(); // TODO: Implement matching logic if strictly needed
-
-            // 4. Run Analysis
-            AnalysisResponse result = resumeAnalyzerService.analyzeResume(resumeText, jobDescription, missingKeywords,
-                    resumeKey);
-
             return ResponseEntity.ok(result);
 
+        } catch (GeminiOverloadedException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .body(Map.of("error", e.getMessage()));
+        } catch (DocumentRejectedException e) {
+            HttpStatus status = e.getReason() == DocumentRejectedException.Reason.TOO_LARGE
+                    ? HttpStatus.PAYLOAD_TOO_LARGE : HttpStatus.UNPROCESSABLE_ENTITY;
+            return ResponseEntity.status(status)
+                    .body(Map.of("error", e.getMessage(), "reason", e.getReason().name()));
         } catch (Exception e) {
-            e.printStackTrace();
+            log.error("Analysis failed", e);
             return ResponseEntity.internalServerError().body(Map.of("error", e.getMessage()));
         }
     }
 
+    @PostMapping("/process/stream")
+    public SseEmitter processResumeStream(@RequestBody Map<String, String> payload) {
+        SseEmitter emitter = new SseEmitter(streamTimeout.toMillis());
+        String resumeKey = payload.get("resumeKey");
+        String jobDescription = payload.get("jobDescription");
+
+        analysisExecutor.execute(() -> {
+            try {
+                if (resumeKey == null || jobDescription == null) {
+                    emitter.send(SseEmitter.event().name("error").data(Map.of("error", "Resume and JD are required")));
+                    emitter.complete();
+                    return;
+                }
+
+                AnalysisResponse result = analysisPipelineService.processStreaming(resumeKey, jobDescription,
+                        new AnalysisStreamListener() {
+                            @Override
+                            public void onAnalysis(Analysis analysis) {
+                                send(emitter, "analysis", analysis);
+                            }
+
+                            @Override
+                            public void onSuggestion(Suggestion suggestion) {
+                                send(emitter, "suggestion", suggestion);
+                            }
+
+                            @Override
+                            public void onResumeSection(String section, Object value) {
+                                send(emitter, "resumeData", Map.of("section", section, "data", value));
+                            }
+                        });
+
+                emitter.send(SseEmitter.event().name("complete").data(result));
+                emitter.complete();
+            } catch (Exception e) {
+                log.error("Streaming analysis failed", e);
+                try {
+                    emitter.send(SseEmitter.event().name("error").data(Map.of("error", String.valueOf(e.getMessage()))));
+                    emitter.complete();
+                } catch (Exception sendFailure) {
+                    emitter.completeWithError(sendFailure);
+                }
+            }
+        });
+        return emitter;
+    }
+
+    /**
+     * One resume against up to {@code analysis.batch.max-size} job
+     * descriptions: {@code {resumeKey, jobDescriptions: [...], minScore?}}.
+     * Streams a {@code result} (or {@code error}) event per JD, tagged with its
+     * index, as each finishes, cache hits first, then {@code complete}.
+     */
+    @PostMapping("/process/batch")
+    public SseEmitter processBatch(@RequestBody Map<String, Object> payload) {
+        SseEmitter emitter = new SseEmitter(streamTimeout.toMillis());
+
+        analysisExecutor.execute(() -> {
+            try {
+                Object resumeKey = payload.get("resumeKey");
+                Object jobDescriptions = payload.get("jobDescriptions");
+                if (!(resumeKey instanceof String) || !(jobDescriptions instanceof List<?> jds) || jds.isEmpty()
+                        || !jds.stream().allMatch(String.class::isInstance)) {
+                    emitter.send(SseEmitter.event().name("error")
+                            .data(Map.of("error", "resumeKey and a non-empty jobDescriptions list are required")));
+                    emitter.complete();
+                    return;
+                }
+                if (jds.size() > maxBatchSize) {
+                    emitter.send(SseEmitter.event().name("error")
+                            .data(Map.of("error", "At most " + maxBatchSize + " job descriptions per batch")));
+                    emitter.complete();
+                    return;
+                }
+                Double minScore = payload.get("minScore") instanceof Number number ? number.doubleValue() : null;
+
+                AtomicInteger cached = new AtomicInteger();
+                AtomicInteger analyzed = new AtomicInteger();
+                AtomicInteger failed = new AtomicInteger();
+                analysisBatchService.process((String) resumeKey, jds.stream().map(String.class::cast).toList(),
+                        minScore, new AnalysisBatchService.BatchListener() {
+                            @Override
+                            public void onResult(int index, AnalysisResponse response, boolean fromCache) {
+                                (fromCache ? cached : analyzed).incrementAndGet();
+                                send(emitter, "result", Map.of("index", index, "cached", fromCache, "response", response));
+                            }
+
+                            @Override
+                            public void onError(int index, Throwable error) {
+                                failed.incrementAndGet();
+                                Map<String, Object> data = new HashMap<>();
+                                data.put("index", index);
+                                data.put("error", String.valueOf(error.getMessage()));
+                                if (error instanceof GeminiOverloadedException overloaded) {
+                                    data.put("retryAfterSeconds", overloaded.getRetryAfterSeconds());
+                                }
+                                send(emitter, "error", data);
+                            }
+                        }).join();
+
+                emitter.send(SseEmitter.event().name("complete").data(Map.of("total", jds.size(),
+                        "cached", cached.get(), "analyzed", analyzed.get(), "failed", failed.get())));
+                emitter.complete();
+            } catch (Exception e) {
+                log.error("Batch analysis failed", e);
+                try {
+                    emitter.send(SseEmitter.event().name("error").data(Map.of("error", String.valueOf(e.getMessage()))));
+                    emitter.complete();
+                } catch (Exception sendFailure) {
+                    emitter.completeWithError(sendFailure);
+                }
+            }
+        });
+        return emitter;
+    }
+
+    /**
+     * Fresh rewrites for individual bullets without re-running the analysis:
+     * {@code {jobDescription, bullets: ["..." or {original}], targetSkills?: [...]}}.
+     * Returns {@code {rewrites: [{original, improved, cached}]}} in the order
+     * of {@code bullets}.
+     */
+    @PostMapping("/rewrite-bullets")
+    public ResponseEntity<?> rewriteBullets(@RequestBody Map<String, Object> payload) {
+        try {
+            Object jobDescription = payload.get("jobDescription");
+            List<String> bullets = bulletTexts(payload.get("bullets"));
+            if (!(jobDescription instanceof String jd) || bullets == null || bullets.isEmpty()) {
+                return ResponseEntity.badRequest()
+                        .body(Map.of("error", "jobDescription and a non-empty bullets list are required"));
+            }
+            if (bullets.size() > maxRewriteBullets) {
+                return ResponseEntity.badRequest()
+                        .body(Map.of("error", "At most " + maxRewriteBullets + " bullets per request"));
+            }
+            List<String> targetSkills = null;
+            if (payload.get("targetSkills") instanceof List<?> skills) {
+                targetSkills = skills.stream().filter(String.class::isInstance).map(String.class::cast).toList();
+            }
+
+            return ResponseEntity.ok(Map.of("rewrites", bulletRewriteService.rewrite(bullets, jd, targetSkills)));
+        } catch (GeminiOverloadedException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            log.error("Bullet rewrite failed", e);
+            return ResponseEntity.internalServerError().body(Map.of("error", String.valueOf(e.getMessage())));
+        }
+    }
+
+    /** Bullets as plain strings or ResumeData bullet objects; null if neither. */
+    private static List<String> bulletTexts(Object bullets) {
+        if (!(bullets instanceof List<?> list)) {
+            return null;
+        }
+        List<String> texts = new ArrayList<>(list.size());
+        for (Object bullet : list) {
+            if (bullet instanceof String text) {
+                texts.add(text);
+            } else if (bullet instanceof Map<?, ?> object && object.get("original") instanceof String text) {
+                texts.add(text);
+            } else {
+                return null;
+            }
+        }
+        return texts;
+    }
+
+    private static void send(SseEmitter emitter, String event, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(event).data(data));
+        } catch (IOException e) {
+            // Client disconnected; abort the stream rather than keep spending tokens
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Renders the resume. {@code output=url} stores the PDF in S3 and returns
+     * {@code {url, expiresInSeconds}} instead of the bytes.
+     */
     @PostMapping("/generate-pdf")
-    public ResponseEntity<?> generatePdf(@RequestBody com.lockin.rewrite.model.resume.ResumeData resumeData) {
+    public ResponseEntity<?> generatePdf(@RequestBody com.lockin.rewrite.model.resume.ResumeData resumeData,
+            @RequestParam(name = "output", defaultValue = "inline") String output) {
         try {
+            if (output.equals("url")) {
+                String url = latexService.generatePdfUrl(resumeData);
+                return ResponseEntity.ok(Map.of("url", url, "expiresInSeconds", latexService.getUrlExpiresInSeconds()));
+            }
+            if (!output.equals("inline")) {
+                return ResponseEntity.badRequest().body(Map.of("error", "output must be 'inline' or 'url'"));
+            }
+
             byte[] pdfBytes = latexService.generatePdf(resumeData);
             return ResponseEntity.ok()
                     .contentType(org.springframework.http.MediaType.APPLICATION_PDF)
                     .header(org.springframework.http.HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"resume.pdf\"")
                     .body(pdfBytes);
+        } catch (RenderOverloadedException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
-            e.printStackTrace();
+            log.error("PDF generation failed", e);
             return ResponseEntity.internalServerError().body(Map.of("error", e.getMessage()));
         }
     }
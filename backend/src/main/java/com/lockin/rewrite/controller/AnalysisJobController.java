@@ -0,0 +1,101 @@
+package com.lockin.rewrite.controller;
+
+import com.lockin.rewrite.model.AnalysisJob;
+import com.lockin.rewrite.service.AnalysisJobService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@RestController
+@RequestMapping("/api/jobs")
+@CrossOrigin(origins = "http://localhost:3000")
+public class AnalysisJobController {
+
+    private final AnalysisJobService analysisJobService;
+    private final Duration sseTimeout;
+
+    public AnalysisJobController(AnalysisJobService analysisJobService,
+            @Value("${jobs.sse-timeout:2m}") Duration sseTimeout) {
+        this.analysisJobService = analysisJobService;
+        this.sseTimeout = sseTimeout;
+    }
+
+    @PostMapping
+    public ResponseEntity<?> submit(@RequestBody Map<String, String> payload) {
+        String resumeKey = payload.get("resumeKey");
+        String jobDescription = payload.get("jobDescription");
+
+        if (resumeKey == null || jobDescription == null) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Resume and JD are required"));
+        }
+
+        AnalysisJob job = analysisJobService.submit(resumeKey, jobDescription);
+        if (job == null) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, "5")
+                    .body(Map.of("error", "Too many analyses in progress, try again shortly"));
+        }
+
+        return ResponseEntity.accepted()
+                .header(HttpHeaders.LOCATION, "/api/jobs/" + job.getId())
+                .body(Map.of("jobId", job.getId(), "status", job.getStatus()));
+    }
+
+    @GetMapping("/{jobId}")
+    public ResponseEntity<?> getJob(@PathVariable String jobId) {
+        AnalysisJob job = analysisJobService.getJob(jobId);
+        if (job == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Unknown or expired job"));
+        }
+        return ResponseEntity.ok(job);
+    }
+
+    @GetMapping("/{jobId}/events")
+    public SseEmitter streamJob(@PathVariable String jobId) {
+        SseEmitter emitter = new SseEmitter(sseTimeout.toMillis());
+        AnalysisJob job = analysisJobService.getJob(jobId);
+        if (job == null) {
+            try {
+                emitter.send(SseEmitter.event().name("error").data(Map.of("error", "Unknown or expired job")));
+                emitter.complete();
+            } catch (IOException e) {
+                emitter.completeWithError(e);
+            }
+            return emitter;
+        }
+
+        // After a timeout or disconnect the emitter is finished; a late completion must not write to it
+        AtomicBoolean closed = new AtomicBoolean();
+        emitter.onTimeout(() -> closed.set(true));
+        emitter.onError(error -> closed.set(true));
+        emitter.onCompletion(() -> closed.set(true));
+
+        job.getCompletion().whenComplete((result, error) -> {
+            if (closed.get()) {
+                return;
+            }
+            try {
+                if (error == null) {
+                    emitter.send(SseEmitter.event().name("result").data(result));
+                } else {
+                    emitter.send(SseEmitter.event().name("error").data(Map.of("error",
+                            Objects.requireNonNullElse(job.getError(), "Analysis failed"))));
+                }
+                emitter.complete();
+            } catch (Exception e) {
+                // Client went away or the emitter timed out meanwhile; nothing left to deliver
+                emitter.completeWithError(e);
+            }
+        });
+        return emitter;
+    }
+}
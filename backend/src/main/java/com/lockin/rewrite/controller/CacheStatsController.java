@@ -0,0 +1,42 @@
+package com.lockin.rewrite.controller;
+
+import com.lockin.rewrite.cache.AnalysisCacheKeys;
+import com.lockin.rewrite.cache.CacheEntryStats;
+import com.lockin.rewrite.cache.NearCache;
+import com.lockin.rewrite.cache.NearCacheManager;
+import com.lockin.rewrite.cache.PdfRenderCache;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/cache")
+@CrossOrigin(origins = "http://localhost:3000")
+public class CacheStatsController {
+
+    private final CacheEntryStats analysisCacheStats;
+    private final NearCacheManager cacheManager;
+    private final PdfRenderCache pdfRenderCache;
+
+    public CacheStatsController(CacheEntryStats analysisCacheStats, NearCacheManager cacheManager,
+            PdfRenderCache pdfRenderCache) {
+        this.analysisCacheStats = analysisCacheStats;
+        this.cacheManager = cacheManager;
+        this.pdfRenderCache = pdfRenderCache;
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<?> getStats() {
+        NearCache analyses = cacheManager.getNearCaches().get(AnalysisCacheKeys.CACHE_NAME);
+        return ResponseEntity.ok(Map.of(
+                AnalysisCacheKeys.CACHE_NAME, Map.of(
+                        "entries", analysisCacheStats,
+                        "l1", analyses.getLocalStats(),
+                        "l2", analyses.getRemoteStats()),
+                "renders", Map.of(
+                        "l1", pdfRenderCache.getLocalStats(),
+                        "disk", pdfRenderCache.getDiskStats(),
+                        "diskBytes", pdfRenderCache.getDiskBytes())));
+    }
+}
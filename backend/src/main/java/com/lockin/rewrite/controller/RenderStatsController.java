@@ -0,0 +1,36 @@
+package com.lockin.rewrite.controller;
+
+import com.lockin.rewrite.service.TectonicWorkerPool;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/render")
+@CrossOrigin(origins = "http://localhost:3000")
+public class RenderStatsController {
+
+    private final TectonicWorkerPool tectonicWorkerPool;
+
+    public RenderStatsController(TectonicWorkerPool tectonicWorkerPool) {
+        this.tectonicWorkerPool = tectonicWorkerPool;
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<?> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("warmed", tectonicWorkerPool.isWarmed());
+        stats.put("workers", tectonicWorkerPool.getPoolSize());
+        stats.put("idleWorkers", tectonicWorkerPool.getIdleWorkers());
+        stats.put("queued", tectonicWorkerPool.getQueued());
+        stats.put("rejected", tectonicWorkerPool.getRejectedCount());
+        stats.put("queueTimeouts", tectonicWorkerPool.getQueueTimeoutCount());
+        stats.put("processTimeouts", tectonicWorkerPool.getProcessTimeoutCount());
+        stats.put("averageWaitMillis", tectonicWorkerPool.getAverageWaitMillis());
+        stats.put("maxWaitMillis", tectonicWorkerPool.getMaxWaitMillis());
+        stats.put("averageRenderMillis", tectonicWorkerPool.getAverageRenderMillis());
+        return ResponseEntity.ok(stats);
+    }
+}
@@ -0,0 +1,74 @@
+package com.lockin.rewrite.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+
+public class AnalysisJob {
+
+    public enum Status {
+        QUEUED, RUNNING, COMPLETED, FAILED
+    }
+
+    private final String id;
+    private final Instant createdAt;
+    private volatile Status status = Status.QUEUED;
+    private volatile Instant completedAt;
+    private volatile AnalysisResponse result;
+    private volatile String error;
+
+    @JsonIgnore
+    private final CompletableFuture<AnalysisResponse> completion = new CompletableFuture<>();
+
+    public AnalysisJob(String id) {
+        this.id = id;
+        this.createdAt = Instant.now();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public Instant getCompletedAt() {
+        return completedAt;
+    }
+
+    public AnalysisResponse getResult() {
+        return result;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public CompletableFuture<AnalysisResponse> getCompletion() {
+        return completion;
+    }
+
+    public void markRunning() {
+        this.status = Status.RUNNING;
+    }
+
+    public void complete(AnalysisResponse result) {
+        this.result = result;
+        this.completedAt = Instant.now();
+        this.status = Status.COMPLETED;
+        completion.complete(result);
+    }
+
+    public void fail(String error) {
+        this.error = error;
+        this.completedAt = Instant.now();
+        this.status = Status.FAILED;
+        completion.completeExceptionally(new RuntimeException(error));
+    }
+}
@@ -9,6 +9,8 @@ public class AnalysisResponse implements Serializable {
     private List<Suggestion> suggestions;
     private double score;
     private com.lockin.rewrite.model.resume.ResumeData resumeData;
+    private String mode; // "full" (LLM analysis), "incremental" (delta over an earlier one) or "fast" (local scoring only)
+    private String analysisId; // Pass back as baseAnalysisId to re-analyze an edited resume/JD incrementally
 
     public AnalysisResponse() {
     }
@@ -59,4 +61,20 @@ public class AnalysisResponse implements Serializable {
     public void setResumeData(com.lockin.rewrite.model.resume.ResumeData resumeData) {
         this.resumeData = resumeData;
     }
+
+    public String getMode() {
+        return mode;
+    }
+
+    public void setMode(String mode) {
+        this.mode = mode;
+    }
+
+    public String getAnalysisId() {
+        return analysisId;
+    }
+
+    public void setAnalysisId(String analysisId) {
+        this.analysisId = analysisId;
+    }
 }
@@ -0,0 +1,38 @@
+package com.lockin.rewrite.model;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Result of matching resume keywords against job description keywords.
+ */
+public class KeywordMatch implements Serializable {
+    private final double score;
+    private final List<String> jdKeywords;
+    private final List<String> matchedKeywords;
+    private final List<String> missingKeywords;
+
+    public KeywordMatch(double score, List<String> jdKeywords, List<String> matchedKeywords,
+            List<String> missingKeywords) {
+        this.score = score;
+        this.jdKeywords = jdKeywords;
+        this.matchedKeywords = matchedKeywords;
+        this.missingKeywords = missingKeywords;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    public List<String> getJdKeywords() {
+        return jdKeywords;
+    }
+
+    public List<String> getMatchedKeywords() {
+        return matchedKeywords;
+    }
+
+    public List<String> getMissingKeywords() {
+        return missingKeywords;
+    }
+}
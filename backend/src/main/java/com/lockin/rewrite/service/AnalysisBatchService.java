@@ -0,0 +1,119 @@
+package com.lockin.rewrite.service;
+
+import com.lockin.rewrite.cache.AnalysisCacheKeys;
+import com.lockin.rewrite.cache.NearCache;
+import com.lockin.rewrite.model.AnalysisResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * One resume against many job descriptions.
+ *
+ * The resume is resolved (downloaded and parsed at most once) up front, all
+ * cached analyses are found with one L1 pass plus one Redis MGET, and the
+ * misses run concurrently on the analysis executor. They still go through
+ * single-flight and the Gemini limiter, so a batch never exceeds the quota;
+ * it just queues for it. Results are reported per JD as they finish.
+ */
+@Service
+public class AnalysisBatchService {
+
+    private static final Logger log = LoggerFactory.getLogger(AnalysisBatchService.class);
+
+    public interface BatchListener {
+        /** @param cached whether the result came from the cache (no LLM call) */
+        void onResult(int index, AnalysisResponse response, boolean cached);
+
+        void onError(int index, Throwable error);
+    }
+
+    private final ResumeTextService resumeTextService;
+    private final AnalysisPipelineService analysisPipelineService;
+    private final CacheManager cacheManager;
+    private final ExecutorService analysisExecutor;
+
+    public AnalysisBatchService(ResumeTextService resumeTextService,
+            AnalysisPipelineService analysisPipelineService,
+            CacheManager cacheManager,
+            @Qualifier("analysisExecutor") ExecutorService analysisExecutor) {
+        this.resumeTextService = resumeTextService;
+        this.analysisPipelineService = analysisPipelineService;
+        this.cacheManager = cacheManager;
+        this.analysisExecutor = analysisExecutor;
+    }
+
+    /**
+     * Analyzes {@code resumeKey} against each of {@code jobDescriptions}. Cache
+     * hits are reported before this method returns; the returned future
+     * completes once every miss has been reported too. With {@code minScore},
+     * misses that score below it locally are answered by local scoring alone.
+     */
+    public CompletableFuture<Void> process(String resumeKey, List<String> jobDescriptions, Double minScore,
+            BatchListener listener) {
+        String resumeText = resumeTextService.getResumeText(resumeKey);
+
+        List<String> keys = new ArrayList<>(jobDescriptions.size());
+        for (String jobDescription : jobDescriptions) {
+            keys.add(AnalysisCacheKeys.of(resumeKey, jobDescription));
+        }
+        Map<String, Object> cached = lookup(keys);
+
+        List<CompletableFuture<Void>> pending = new ArrayList<>();
+        for (int i = 0; i < jobDescriptions.size(); i++) {
+            int index = i;
+            Object hit = cached.get(keys.get(i));
+            if (hit instanceof AnalysisResponse response) {
+                listener.onResult(index, response, true);
+                continue;
+            }
+            String jobDescription = jobDescriptions.get(i);
+            pending.add(CompletableFuture
+                    .supplyAsync(() -> analysisPipelineService.analyze(resumeKey, resumeText, jobDescription, minScore),
+                            analysisExecutor)
+                    .handle((response, error) -> {
+                        if (error == null) {
+                            listener.onResult(index, response, false);
+                        } else {
+                            listener.onError(index, error.getCause() != null ? error.getCause() : error);
+                        }
+                        return null;
+                    }));
+        }
+        return CompletableFuture.allOf(pending.toArray(new CompletableFuture[0]));
+    }
+
+    private Map<String, Object> lookup(List<String> keys) {
+        Cache cache = cacheManager.getCache(AnalysisCacheKeys.CACHE_NAME);
+        try {
+            if (cache instanceof NearCache nearCache) {
+                return nearCache.getAll(keys);
+            }
+            Map<String, Object> found = new HashMap<>();
+            if (cache != null) {
+                for (String key : keys) {
+                    AnalysisResponse value = cache.get(key, AnalysisResponse.class);
+                    if (value != null) {
+                        found.put(key, value);
+                    }
+                }
+            }
+            return found;
+        } catch (DataAccessException e) {
+            // Treat everything as a miss; single-flight and the analyzer cope without Redis
+            log.warn("Batch cache lookup failed: {}", e.getMessage());
+            return Map.of();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.lockin.rewrite.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.lockin.rewrite.model.AnalysisJob;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Submit/poll front end for the analysis pipeline. Jobs run on the
+ * virtual-thread analysis executor; their state lives in a bounded in-memory
+ * store and expires a while after it was last written.
+ */
+@Service
+public class AnalysisJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(AnalysisJobService.class);
+
+    private final AnalysisPipelineService analysisPipelineService;
+    private final ExecutorService analysisExecutor;
+    private final Cache<String, AnalysisJob> jobs;
+    private final int maxInFlight;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    public AnalysisJobService(AnalysisPipelineService analysisPipelineService,
+            @Qualifier("analysisExecutor") ExecutorService analysisExecutor,
+            @Value("${jobs.max-entries:10000}") long maxEntries,
+            @Value("${jobs.max-in-flight:5000}") int maxInFlight,
+            @Value("${jobs.ttl:30m}") Duration ttl) {
+        this.analysisPipelineService = analysisPipelineService;
+        this.analysisExecutor = analysisExecutor;
+        this.maxInFlight = maxInFlight;
+        this.jobs = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    /**
+     * Queues an analysis and returns immediately, or returns null when the
+     * in-flight limit is reached and the caller should back off.
+     */
+    public AnalysisJob submit(String resumeKey, String jobDescription) {
+        if (inFlight.incrementAndGet() > maxInFlight) {
+            inFlight.decrementAndGet();
+            return null;
+        }
+
+        AnalysisJob job = new AnalysisJob(UUID.randomUUID().toString());
+        jobs.put(job.getId(), job);
+
+        try {
+            analysisExecutor.execute(() -> {
+                try {
+                    job.markRunning();
+                    job.complete(analysisPipelineService.process(resumeKey, jobDescription));
+                } catch (Exception e) {
+                    log.warn("Analysis job {} failed: {}", job.getId(), e.getMessage());
+                    // Many exceptions carry no message; the job must still say why it failed
+                    job.fail(e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+                } finally {
+                    inFlight.decrementAndGet();
+                    // Re-put so the TTL counts from completion, not submission
+                    jobs.put(job.getId(), job);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // The task never ran (e.g. the executor is shutting down), so its slot is ours to give back
+            inFlight.decrementAndGet();
+            jobs.invalidate(job.getId());
+            throw e;
+        }
+        return job;
+    }
+
+    public AnalysisJob getJob(String jobId) {
+        return jobs.getIfPresent(jobId);
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
@@ -0,0 +1,114 @@
+package com.lockin.rewrite.service;
+
+import com.lockin.rewrite.model.AnalysisResponse;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * The end-to-end analysis pipeline shared by the synchronous endpoint and the
+ * job API: resolve resume text, extract keywords, run the LLM analysis (or
+ * only score locally, for mode=fast).
+ */
+@Service
+public class AnalysisPipelineService {
+
+    private final ResumeTextService resumeTextService;
+    private final ResumeAnalyzerService resumeAnalyzerService;
+    private final AnalysisSingleFlightService analysisSingleFlightService;
+    private final KeywordService keywordService;
+    private final LocalScoringService localScoringService;
+    private final IncrementalAnalysisService incrementalAnalysisService;
+
+    public AnalysisPipelineService(ResumeTextService resumeTextService,
+            ResumeAnalyzerService resumeAnalyzerService,
+            AnalysisSingleFlightService analysisSingleFlightService,
+            KeywordService keywordService,
+            LocalScoringService localScoringService,
+            IncrementalAnalysisService incrementalAnalysisService) {
+        this.resumeTextService = resumeTextService;
+        this.resumeAnalyzerService = resumeAnalyzerService;
+        this.analysisSingleFlightService = analysisSingleFlightService;
+        this.keywordService = keywordService;
+        this.localScoringService = localScoringService;
+        this.incrementalAnalysisService = incrementalAnalysisService;
+    }
+
+    public AnalysisResponse process(String resumeKey, String jobDescription) {
+        return process(resumeKey, jobDescription, null);
+    }
+
+    /**
+     * Full analysis, optionally pre-filtered: when {@code minScore} is given
+     * and the local score is below it, the local ("fast") result is returned
+     * and no LLM quota is spent.
+     */
+    public AnalysisResponse process(String resumeKey, String jobDescription, Double minScore) {
+        // 1. Resolve resume text (cached by S3 ETag, downloads and parses only on a miss)
+        String resumeText = resumeTextService.getResumeText(resumeKey);
+        return analyze(resumeKey, resumeText, jobDescription, minScore);
+    }
+
+    /**
+     * Steps after resume resolution, for callers that already hold the text
+     * (the batch endpoint resolves it once for many JDs).
+     */
+    public AnalysisResponse analyze(String resumeKey, String resumeText, String jobDescription, Double minScore) {
+        if (minScore != null) {
+            AnalysisResponse fast = localScoringService.score(resumeText, jobDescription);
+            if (fast.getScore() < minScore) {
+                return fast;
+            }
+        } else {
+            localScoringService.observe(jobDescription);
+        }
+
+        // 2. Local keyword match; the LLM's own keyword lists take precedence
+        List<String> missingKeywords = keywordService.match(resumeText, jobDescription).getMissingKeywords();
+
+        // 3. Run Analysis (identical in-flight requests share one Gemini call)
+        AnalysisResponse response = analysisSingleFlightService.analyze(resumeText, jobDescription, missingKeywords,
+                resumeKey);
+        rememberSnapshot(response, jobDescription);
+        return response;
+    }
+
+    /**
+     * Re-analysis after small edits: diffs against the earlier analysis
+     * {@code baseAnalysisId} and only sends Gemini what changed. Falls back to
+     * a full analysis when the base is gone or the edits are too large.
+     */
+    public AnalysisResponse processIncremental(String resumeKey, String jobDescription, String baseAnalysisId) {
+        String resumeText = resumeTextService.getResumeText(resumeKey);
+        AnalysisResponse incremental = analysisSingleFlightService.reanalyze(baseAnalysisId, resumeKey, resumeText,
+                jobDescription);
+        return incremental != null ? incremental : analyze(resumeKey, resumeText, jobDescription, null);
+    }
+
+    private void rememberSnapshot(AnalysisResponse response, String jobDescription) {
+        if (response.getAnalysisId() != null) {
+            incrementalAnalysisService.remember(response.getAnalysisId(), jobDescription);
+        }
+    }
+
+    /**
+     * Local scoring only: deterministic, milliseconds, no Gemini call.
+     */
+    public AnalysisResponse processFast(String resumeKey, String jobDescription) {
+        String resumeText = resumeTextService.getResumeText(resumeKey);
+        return localScoringService.score(resumeText, jobDescription);
+    }
+
+    /**
+     * Same pipeline, but the LLM output is streamed: {@code listener} sees each
+     * part of the analysis as soon as Gemini has produced it.
+     */
+    public AnalysisResponse processStreaming(String resumeKey, String jobDescription,
+            AnalysisStreamListener listener) {
+        String resumeText = resumeTextService.getResumeText(resumeKey);
+        AnalysisResponse response = resumeAnalyzerService.analyzeResumeStreaming(resumeText, jobDescription, resumeKey,
+                listener);
+        rememberSnapshot(response, jobDescription);
+        return response;
+    }
+}
@@ -0,0 +1,412 @@
+package com.lockin.rewrite.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Builds the analysis prompt within a token budget.
+ *
+ * The instructions and output schema never change, so they are assembled
+ * once and lead every prompt; the identical prefix also lets Gemini's
+ * implicit context caching reuse it across requests. After it come the
+ * resume and the JD, both whitespace-normalized. The resume arrives with its
+ * page furniture already stripped by {@link DocumentParserService}, and keeps
+ * all its content, cut only past a generous safety budget.
+ * The JD has a tighter budget; when it is over, its least relevant lines go
+ * first, ranked by the skills and distinctive (high-IDF) words they carry
+ * per token, so benefits and EEO boilerplate are dropped before
+ * requirements.
+ */
+@Service
+public class AnalysisPromptBuilder {
+
+    static final String INSTRUCTIONS = """
+            You are an expert Talent Acquisition Specialist and Career Coach. Validate the resume against the Job Description (JD).
+
+            **Core Logic**:
+            1. **Match Score**: 0-100. Evaluate based on specific Hard Skills, Soft Skills, Tools, and Cultural Fit.
+            2. **Keywords Extraction**:
+               - **jdKeywords**: Extract all critical technical and soft skills from the Job Description (e.g. "Java", "Agile").
+               - **matchKeywords**: Extract the subset of 'jdKeywords' that are explicitly present in the Resume.
+               - **missingKeywords**: Identify critical requirements (Tech Stack, Methodologies) in 'jdKeywords' that are COMPLETELY ABSENT from the Resume. **CRITICAL**: If a word appears *anywhere* in the resume text (even in a different section), you MUST NOT list it as missing.
+               - **addedKeywords**: Identify keywords that you have ADDED to the resume content during the improvement/rewrite process to better align with the JD.
+            3. **Structure Extraction**: EXTRACT the entire resume content into a structured format.
+            4. **Improvements**: REWRITE bullet points to be impactful, result-oriented, and aligned with the JD's tone.
+               - **STRATEGY**: Look at the 'missingKeywords' list. Try to **INTELLIGENTLY WEAVE** these missing keywords into the 'Improved' bullet points where they fit contextually.
+               - **GOAL**: The 'Improved' version should effectively "fill the gaps" and increase the match score.
+               - **CONSTRAINT**: Do not force a keyword if it makes no sense. The new text must remain truthful to the original experience, just framed better to highlight the skill if applicable.
+
+            **Constraints**:
+            - **CRITICAL**: DO NOT REMOVE INFORMATION. Preserve all original details, numbers, and context.
+            - **Tone**: Professional, confident, and action-oriented.
+            - **Experience & Project Summaries**:
+              * **EXTRACT** the summary exactly as it appears in the resume text.
+              * **DO NOT** summarize, rewrite, or shorten it.
+              * If no summary exists, return an empty string. **DO NOT** generate a summary.
+            - **Project Location**: Extract if present in input.
+            - **Work Experience Summary**: If 'description' text exists in input that isn't a bullet point, treat it as summary.
+            - **Keyword Strictness**:
+              * **STRICTLY EXCLUDE** all locations, city names, country names, and states (e.g., "Chicago", "London", "Remote", "India", "USA", "New York").
+              * **STRICTLY EXCLUDE** generic words (e.g., "Professional", "Senior", "Junior", "Experience", "Various").
+              * **STRICTLY EXCLUDE** dates, years, email addresses, and phone numbers.
+              * **Norm**: Return keywords in Title Case or Lowercase consistently.
+              * **Focus**: Only extract Technologies, Tools, Hard Skills (e.g. Java, AWS), and Specific Soft Skills (e.g. Leadership).
+            - **Formatting**:
+              * **NO MARKDOWN**: The 'improved' text must be plain text. Do NOT use **bold** or *italics*. It breaks the PDF generator.
+
+            **OUTPUT FORMAT**:
+            Return ONLY a raw JSON object (no markdown). Use this exact structure:
+            {
+              "analysis": {
+                "matchScore": <0-100>,
+                "matchKeywords": ["string"],
+                "jdKeywords": ["string"],
+                "missingKeywords": ["string"],
+                "addedKeywords": ["string"],
+                "strengths": ["string"]
+              },
+              "suggestions": [
+                {
+                  "id": "unique-id",
+                  "type": "content",
+                  "originalText": "string",
+                  "suggestedText": "string",
+                  "reason": "string",
+                  "priority": "high"
+                }
+              ],
+              "resumeData": {
+                "personalInfo": {
+                  "name": "string",
+                  "phone": "string",
+                  "email": "string",
+                  "linkedin": "url or empty",
+                  "portfolio": "url or empty"
+                },
+                "education": [
+                  { "school": "string", "date": "string", "degree": "string", "gpa": "string" }
+                ],
+                "skills": {
+                  "languages": "string",
+                  "frameworks": "string",
+                  "tools": "string"
+                },
+                "experience": [
+                  {
+                    "title": "string",
+                    "company": "string",
+                    "date": "string",
+                    "location": "string",
+                    "summary": "string (Max 6 words, or empty)",
+                    "bulletPoints": [
+                      { "original": "original text", "improved": "improved text", "accepted": false }
+                    ]
+                  }
+                ],
+                "projects": [
+                  {
+                    "title": "string",
+                    "link": "url/string",
+                    "date": "string",
+                    "summary": "string (Max 6 words, or empty)",
+                    "location": "string (or empty)",
+                    "bulletPoints": [
+                      { "original": "original text", "improved": "improved text", "accepted": false }
+                    ]
+                  }
+                ]
+              }
+            }
+            """;
+
+    // Incremental re-analysis: only the edits and the previous analysis go in, only the changes come out
+    static final String DELTA_INSTRUCTIONS = """
+            You are an expert Talent Acquisition Specialist and Career Coach. You previously validated a resume against a \
+            Job Description (JD). Both may since have been edited slightly; the edits are listed below with the previous analysis.
+
+            **Tasks**:
+            1. **analysis**: Return the COMPLETE updated analysis (every field). Re-judge only what the edits affect and keep \
+            everything else exactly as it was. Apply the same keyword rules as before: only Technologies, Tools, Hard Skills \
+            and Specific Soft Skills; never locations, generic words, dates, emails or phone numbers. A keyword present \
+            anywhere in the resume is never missing.
+            2. **bullets**: For each edited bullet (by id), REWRITE it to be impactful, result-oriented and aligned with the JD, \
+            weaving in missing keywords only where they fit truthfully. Preserve all original details and numbers. Plain text, \
+            NO MARKDOWN.
+            3. **suggestions**: Suggestions for the edited bullets only (may be empty).
+
+            **OUTPUT FORMAT**:
+            Return ONLY a raw JSON object (no markdown). Use this exact structure:
+            {
+              "analysis": {
+                "matchScore": <0-100>,
+                "matchKeywords": ["string"],
+                "jdKeywords": ["string"],
+                "missingKeywords": ["string"],
+                "addedKeywords": ["string"],
+                "strengths": ["string"]
+              },
+              "bullets": [ { "id": "string", "improved": "string" } ],
+              "suggestions": [
+                {
+                  "id": "unique-id",
+                  "type": "content",
+                  "originalText": "string",
+                  "suggestedText": "string",
+                  "reason": "string",
+                  "priority": "high"
+                }
+              ]
+            }
+            """;
+
+    // Bullet rewrites: a terse schema, since the output is most of the cost
+    static final String BULLET_INSTRUCTIONS = """
+            You are an expert resume writer. Rewrite each numbered resume bullet below for the Job Description: impactful, \
+            result-oriented, opening with a strong action verb. Preserve every original detail and number and invent nothing; \
+            work in the target skills only where they truthfully fit. One sentence each, plain text, NO MARKDOWN.
+
+            Return ONLY a raw JSON object with one entry per bullet: {"r":[{"i":<bullet number>,"t":"<rewrite>"}]}
+            """;
+
+    private static final String RESUME_HEADING = "\n**Resume Text**:\n";
+    private static final String JD_HEADING = "\n\n**Job Description**:\n";
+    private static final String CLOSING = "\n\nReturn ONLY the JSON object described above.";
+
+    private static final int INSTRUCTIONS_TOKENS = estimateTokens(INSTRUCTIONS);
+
+    private static final Pattern BOILERPLATE = Pattern.compile(
+            "(?i)^(references (are )?available (up)?on request\\.?|curriculum vitae|r[eé]sum[eé])$");
+    private static final Pattern BULLET = Pattern.compile("^[\u2022\u25CF\u25AA\u25E6\u2023\u2043\u25A0\uF0B7\uF0A7]\\s*");
+    private static final Pattern INVISIBLE = Pattern.compile("[\u00AD\u200B\u200C\u200D\u2060\uFEFF]");
+    private static final Pattern SPACES = Pattern.compile("[\\s\\p{Zs}]+");
+    private static final int MAX_HEADER_TOKENS = 6;
+    private static final double SKILL_WEIGHT = 1.0;
+    private static final double TERM_WEIGHT = 0.25;
+
+    private final KeywordService keywordService;
+    private final JdTermStatistics jdTermStatistics;
+    private final int resumeMaxTokens;
+    private final int jdMaxTokens;
+
+    public AnalysisPromptBuilder(KeywordService keywordService, JdTermStatistics jdTermStatistics,
+            @Value("${prompt.resume.max-tokens:6000}") int resumeMaxTokens,
+            @Value("${prompt.jd.max-tokens:1200}") int jdMaxTokens) {
+        this.keywordService = keywordService;
+        this.jdTermStatistics = jdTermStatistics;
+        this.resumeMaxTokens = resumeMaxTokens;
+        this.jdMaxTokens = jdMaxTokens;
+    }
+
+    public String build(String resumeText, String jobDescription) {
+        String resume = compactResume(resumeText);
+        String jd = compactJobDescription(jobDescription);
+        return new StringBuilder(INSTRUCTIONS.length() + resume.length() + jd.length() + 96)
+                .append(INSTRUCTIONS)
+                .append(RESUME_HEADING).append(resume)
+                .append(JD_HEADING).append(jd)
+                .append(CLOSING)
+                .toString();
+    }
+
+    /**
+     * The incremental re-analysis prompt: {@code edits} lists the resume and JD
+     * changes and the edited bullets by id, already formatted.
+     */
+    public String buildDelta(String previousAnalysisJson, String edits) {
+        return new StringBuilder(DELTA_INSTRUCTIONS.length() + previousAnalysisJson.length() + edits.length() + 64)
+                .append(DELTA_INSTRUCTIONS)
+                .append("\n**Previous analysis**:\n").append(previousAnalysisJson)
+                .append("\n\n").append(edits)
+                .append(CLOSING)
+                .toString();
+    }
+
+    /**
+     * The bullet rewrite prompt; bullets are numbered by their position in
+     * {@code bullets}. {@code jobDescription} should already be compacted.
+     */
+    public String buildBulletRewrite(String jobDescription, List<String> targetSkills, List<String> bullets) {
+        StringBuilder prompt = new StringBuilder(BULLET_INSTRUCTIONS.length() + jobDescription.length() + 512)
+                .append(BULLET_INSTRUCTIONS)
+                .append(JD_HEADING).append(jobDescription);
+        if (!targetSkills.isEmpty()) {
+            prompt.append("\n\n**Target skills**: ").append(String.join(", ", targetSkills));
+        }
+        prompt.append("\n\n**Bullets**:");
+        for (int i = 0; i < bullets.size(); i++) {
+            prompt.append('\n').append(i).append(". ").append(bullets.get(i));
+        }
+        return prompt.append(CLOSING).toString();
+    }
+
+    /** Tokens in the constant part of every prompt. */
+    public int getInstructionTokens() {
+        return INSTRUCTIONS_TOKENS;
+    }
+
+    /**
+     * Approximate token count, close to Gemini's for English prose and code
+     * and far cheaper than a real tokenizer: a word is one token per six
+     * letters or digits, and a run of punctuation one per two characters
+     * ("**", "\": \"" merge), both rounded up.
+     */
+    public static int estimateTokens(CharSequence text) {
+        int tokens = 0;
+        int word = 0;
+        int symbols = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                word++;
+                tokens += (symbols + 1) / 2;
+                symbols = 0;
+                continue;
+            }
+            tokens += (word + 5) / 6;
+            word = 0;
+            if (Character.isWhitespace(c)) {
+                tokens += (symbols + 1) / 2;
+                symbols = 0;
+            } else {
+                symbols++;
+            }
+        }
+        return tokens + (word + 5) / 6 + (symbols + 1) / 2;
+    }
+
+    String compactResume(String resumeText) {
+        String text = normalize(resumeText);
+        if (estimateTokens(text) <= resumeMaxTokens) {
+            return text;
+        }
+        // Past the safety budget: lose the "other" sections (interests, awards...) before anything else
+        StringBuilder kept = new StringBuilder(text.length());
+        List<LocalScoringService.SectionStart> sections = LocalScoringService.detectSections(text);
+        for (int i = 0; i < sections.size(); i++) {
+            int start = sections.get(i).offset();
+            int end = i + 1 < sections.size() ? sections.get(i + 1).offset() : text.length();
+            if (sections.get(i).section() != LocalScoringService.Section.OTHER) {
+                kept.append(text, start, end);
+            }
+        }
+        return truncateLines(kept.toString(), resumeMaxTokens);
+    }
+
+    String compactJobDescription(String jobDescription) {
+        return compactJobDescription(jobDescription, jdMaxTokens);
+    }
+
+    /** The job description cut down to {@code maxTokens}, most keyword-dense lines kept. */
+    String compactJobDescription(String jobDescription, int maxTokens) {
+        String text = normalize(jobDescription);
+        if (estimateTokens(text) <= maxTokens) {
+            return text;
+        }
+        String[] lines = text.split("\n", -1);
+        int[] tokens = new int[lines.length];
+        double[] density = new double[lines.length];
+        int total = 0;
+        // The IDF of a term no JD has contained yet
+        double maxIdf = Math.max(jdTermStatistics.idf(""), 1e-9);
+        List<Integer> droppable = new ArrayList<>();
+        for (int i = 0; i < lines.length; i++) {
+            tokens[i] = estimateTokens(lines[i]);
+            total += tokens[i];
+            // Blank lines and short headings ("Requirements:") cost little and keep the structure
+            if (tokens[i] == 0 || (tokens[i] <= MAX_HEADER_TOKENS && lines[i].endsWith(":"))) {
+                continue;
+            }
+            density[i] = relevance(lines[i], maxIdf) / tokens[i];
+            droppable.add(i);
+        }
+        droppable.sort((a, b) -> density[a] != density[b] ? Double.compare(density[a], density[b])
+                : Integer.compare(b, a));
+
+        boolean[] dropped = new boolean[lines.length];
+        for (int index : droppable) {
+            if (total <= maxTokens) {
+                break;
+            }
+            dropped[index] = true;
+            total -= tokens[index];
+        }
+        StringBuilder kept = new StringBuilder(text.length());
+        for (int i = 0; i < lines.length; i++) {
+            if (!dropped[i]) {
+                kept.append(lines[i]).append('\n');
+            }
+        }
+        return truncateLines(normalize(kept.toString()), maxTokens);
+    }
+
+    /**
+     * Dictionary skills are what the analysis is about, so each counts in
+     * full however common it is across JDs; other words add a fraction of
+     * their IDF relative to an unseen word's, so a line of rare filler
+     * ("backed by top investors") still ranks below a short list of skills.
+     */
+    private double relevance(String line, double maxIdf) {
+        Map<String, Boolean> keywords = new HashMap<>();
+        keywordService.forEachKeyword(line, (keyword, offset, skill) -> keywords.merge(keyword, skill, Boolean::logicalOr));
+        double relevance = 0;
+        for (Map.Entry<String, Boolean> keyword : keywords.entrySet()) {
+            relevance += keyword.getValue() ? SKILL_WEIGHT
+                    : TERM_WEIGHT * jdTermStatistics.idf(keyword.getKey()) / maxIdf;
+        }
+        return relevance;
+    }
+
+    /**
+     * Collapses runs of spaces and tabs, removes invisible characters, trims
+     * lines, turns bullet glyphs into "- " and allows at most one blank line
+     * in a row.
+     */
+    static String normalize(String text) {
+        String cleaned = INVISIBLE.matcher(text).replaceAll("");
+        StringBuilder out = new StringBuilder(cleaned.length());
+        boolean blank = true;
+        for (String line : cleaned.split("\\R")) {
+            String trimmed = SPACES.matcher(line).replaceAll(" ").strip();
+            if (trimmed.isEmpty()) {
+                if (!blank) {
+                    out.append('\n');
+                    blank = true;
+                }
+                continue;
+            }
+            if (BOILERPLATE.matcher(trimmed).matches()) {
+                continue;
+            }
+            out.append(BULLET.matcher(trimmed).replaceFirst("- ")).append('\n');
+            blank = false;
+        }
+        int end = out.length();
+        while (end > 0 && out.charAt(end - 1) == '\n') {
+            end--;
+        }
+        out.setLength(end);
+        return out.toString();
+    }
+
+    /** Keeps whole lines from the start while they fit in {@code maxTokens}. */
+    private static String truncateLines(String text, int maxTokens) {
+        int total = 0;
+        int end = 0;
+        while (end < text.length()) {
+            int next = text.indexOf('\n', end);
+            next = next < 0 ? text.length() : next + 1;
+            total += estimateTokens(text.subSequence(end, next));
+            if (total > maxTokens) {
+                break;
+            }
+            end = next;
+        }
+        return text.substring(0, end).stripTrailing();
+    }
+}
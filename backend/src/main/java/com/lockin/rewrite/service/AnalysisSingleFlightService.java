@@ -0,0 +1,218 @@
+package com.lockin.rewrite.service;
+
+import com.lockin.rewrite.cache.AnalysisCacheKeys;
+import com.lockin.rewrite.model.AnalysisResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces identical in-flight analyses so each (resumeKey, jobDescription)
+ * pair reaches Gemini once, even while the first call is still running.
+ * Incremental re-analyses are coalesced the same way, under their own keys.
+ *
+ * Within a JVM, concurrent callers share the leader's future. Across nodes,
+ * the leader holds a short Redis lease, renewed while its Gemini call runs;
+ * callers on other nodes poll the result's cache until the leader's result
+ * lands there, and take over if the lease disappears without one (e.g. the
+ * leader's node died).
+ */
+@Service
+public class AnalysisSingleFlightService implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(AnalysisSingleFlightService.class);
+
+    private static final String LEASE_PREFIX = "analysis-lease::";
+
+    // Only the lease holder may release it
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    // Only the lease holder may extend it
+    private static final RedisScript<Long> RENEW_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('pexpire', KEYS[1], ARGV[2]) else return 0 end",
+            Long.class);
+
+    private final ResumeAnalyzerService resumeAnalyzerService;
+    private final IncrementalAnalysisService incrementalAnalysisService;
+    private final CacheManager cacheManager;
+    private final StringRedisTemplate redisTemplate;
+    private final Duration leaseTtl;
+    private final Duration pollInterval;
+    private final Duration maxWait;
+    private final ConcurrentHashMap<String, CompletableFuture<AnalysisResponse>> inFlight = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService leaseRenewer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "analysis-lease");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public AnalysisSingleFlightService(ResumeAnalyzerService resumeAnalyzerService,
+            IncrementalAnalysisService incrementalAnalysisService,
+            CacheManager cacheManager,
+            StringRedisTemplate redisTemplate,
+            @Value("${analysis.single-flight.lease-ttl:90s}") Duration leaseTtl,
+            @Value("${analysis.single-flight.poll-interval:250ms}") Duration pollInterval,
+            @Value("${analysis.single-flight.max-wait:120s}") Duration maxWait) {
+        this.resumeAnalyzerService = resumeAnalyzerService;
+        this.incrementalAnalysisService = incrementalAnalysisService;
+        this.cacheManager = cacheManager;
+        this.redisTemplate = redisTemplate;
+        this.leaseTtl = leaseTtl;
+        this.pollInterval = pollInterval;
+        this.maxWait = maxWait;
+    }
+
+    public AnalysisResponse analyze(String resumeText, String jobDescription, List<String> missingKeywords,
+            String resumeKey) {
+        return coalesce(AnalysisCacheKeys.CACHE_NAME, AnalysisCacheKeys.of(resumeKey, jobDescription),
+                () -> resumeAnalyzerService.analyzeResume(resumeText, jobDescription, missingKeywords, resumeKey));
+    }
+
+    /**
+     * {@link IncrementalAnalysisService#reanalyze}, coalesced per (base,
+     * resume, JD); null when a full analysis is needed instead.
+     */
+    public AnalysisResponse reanalyze(String baseAnalysisId, String resumeKey, String resumeText,
+            String jobDescription) {
+        return coalesce(AnalysisCacheKeys.INCREMENTAL_CACHE_NAME,
+                AnalysisCacheKeys.incremental(baseAnalysisId, resumeKey, jobDescription),
+                () -> incrementalAnalysisService.reanalyze(baseAnalysisId, resumeKey, resumeText, jobDescription));
+    }
+
+    private AnalysisResponse coalesce(String cacheName, String key, Supplier<AnalysisResponse> work) {
+        CompletableFuture<AnalysisResponse> mine = new CompletableFuture<>();
+        CompletableFuture<AnalysisResponse> leader = inFlight.putIfAbsent(key, mine);
+        if (leader != null) {
+            return await(leader);
+        }
+
+        try {
+            AnalysisResponse result = runClusterWide(cacheName, key, work);
+            mine.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    public int getInFlight() {
+        return inFlight.size();
+    }
+
+    private AnalysisResponse runClusterWide(String cacheName, String key, Supplier<AnalysisResponse> work) {
+        Cache cache = cacheManager.getCache(cacheName);
+        String leaseKey = LEASE_PREFIX + key;
+        long deadline = System.nanoTime() + maxWait.toNanos();
+
+        while (System.nanoTime() < deadline) {
+            AnalysisResponse cached = cached(cache, key);
+            if (cached != null) {
+                return cached;
+            }
+
+            String token = UUID.randomUUID().toString();
+            Boolean acquired;
+            try {
+                acquired = redisTemplate.opsForValue().setIfAbsent(leaseKey, token, leaseTtl);
+            } catch (DataAccessException e) {
+                // No Redis, no cluster-wide coordination; still coalesced within this JVM
+                return work.get();
+            }
+
+            if (Boolean.TRUE.equals(acquired)) {
+                // A slow or retried Gemini call can outlive the TTL; keep the lease until we're done
+                long renewEvery = Math.max(1, leaseTtl.toMillis() / 3);
+                ScheduledFuture<?> renewal = leaseRenewer.scheduleAtFixedRate(() -> renew(leaseKey, token),
+                        renewEvery, renewEvery, TimeUnit.MILLISECONDS);
+                try {
+                    return work.get();
+                } finally {
+                    renewal.cancel(false);
+                    release(leaseKey, token);
+                }
+            }
+
+            // Another node is leading; wait for its result to show up in the cache
+            try {
+                Thread.sleep(pollInterval.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while waiting for in-flight analysis", e);
+            }
+        }
+
+        // The leader is taking too long; stop waiting and do the work ourselves
+        return work.get();
+    }
+
+    private static AnalysisResponse cached(Cache cache, String key) {
+        if (cache == null) {
+            return null;
+        }
+        try {
+            return cache.get(key, AnalysisResponse.class);
+        } catch (DataAccessException e) {
+            // Treat as a miss; the lease below degrades the same way
+            return null;
+        }
+    }
+
+    private void renew(String leaseKey, String token) {
+        try {
+            redisTemplate.execute(RENEW_SCRIPT, List.of(leaseKey), token, String.valueOf(leaseTtl.toMillis()));
+        } catch (DataAccessException e) {
+            // Try again on the next tick; at worst another node takes over
+            log.warn("Failed to renew analysis lease {}: {}", leaseKey, e.getMessage());
+        }
+    }
+
+    private void release(String leaseKey, String token) {
+        try {
+            redisTemplate.execute(RELEASE_SCRIPT, List.of(leaseKey), token);
+        } catch (DataAccessException e) {
+            // The lease expires on its own
+            log.warn("Failed to release analysis lease {}: {}", leaseKey, e.getMessage());
+        }
+    }
+
+    @Override
+    public void destroy() {
+        leaseRenewer.shutdownNow();
+    }
+
+    private static AnalysisResponse await(CompletableFuture<AnalysisResponse> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.lockin.rewrite.service;
+
+import com.lockin.rewrite.model.Analysis;
+import com.lockin.rewrite.model.Suggestion;
+
+/**
+ * Receives the parts of a streamed analysis as soon as each one is complete in
+ * the LLM output. Callbacks arrive on the thread reading the Gemini stream, in
+ * output order.
+ */
+public interface AnalysisStreamListener {
+
+    void onAnalysis(Analysis analysis);
+
+    void onSuggestion(Suggestion suggestion);
+
+    /**
+     * @param section the {@code ResumeData} property name, e.g. "experience"
+     * @param value   the section value, typed as on {@code ResumeData}
+     */
+    void onResumeSection(String section, Object value);
+}
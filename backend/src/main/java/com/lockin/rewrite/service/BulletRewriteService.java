@@ -0,0 +1,231 @@
+package com.lockin.rewrite.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lockin.rewrite.cache.AnalysisCacheKeys;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Rewrites individual resume bullets for a job description without re-running
+ * the analysis.
+ *
+ * The JD goes in compacted to a small budget, with its dictionary skills as
+ * the targets, and the bullets go in numbered, many per request; the answer
+ * is a terse {@code {"r":[{"i","t"}]}}, so a request costs little more than
+ * the bullets themselves. Each rewrite is cached in Redis by a digest of the
+ * bullet and that JD context: identical bullets in one request share one
+ * rewrite, and bullets seen before cost one MGET and no LLM call.
+ */
+@Service
+public class BulletRewriteService {
+
+    private static final Logger log = LoggerFactory.getLogger(BulletRewriteService.class);
+
+    private static final String KEY_PREFIX = "bullet-rewrite::";
+    // Per-bullet output allowance beyond the bullet's own length (rewrites run a little longer)
+    private static final int OUTPUT_OVERHEAD_TOKENS = 16;
+
+    /** @param cached whether the rewrite came from the cache (no LLM call) */
+    public record Rewrite(String original, String improved, boolean cached) {
+    }
+
+    private final ResumeAnalyzerService resumeAnalyzerService;
+    private final AnalysisPromptBuilder promptBuilder;
+    private final KeywordService keywordService;
+    private final StringRedisTemplate redisTemplate;
+    private final ExecutorService analysisExecutor;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Duration cacheTtl;
+    private final int jdMaxTokens;
+    private final int bulletsPerRequest;
+
+    public BulletRewriteService(ResumeAnalyzerService resumeAnalyzerService,
+            AnalysisPromptBuilder promptBuilder,
+            KeywordService keywordService,
+            StringRedisTemplate redisTemplate,
+            @Qualifier("analysisExecutor") ExecutorService analysisExecutor,
+            @Value("${rewrite.cache.ttl:7d}") Duration cacheTtl,
+            @Value("${rewrite.jd.max-tokens:400}") int jdMaxTokens,
+            @Value("${rewrite.bullets-per-request:25}") int bulletsPerRequest) {
+        this.resumeAnalyzerService = resumeAnalyzerService;
+        this.promptBuilder = promptBuilder;
+        this.keywordService = keywordService;
+        this.redisTemplate = redisTemplate;
+        this.analysisExecutor = analysisExecutor;
+        this.cacheTtl = cacheTtl;
+        this.jdMaxTokens = jdMaxTokens;
+        this.bulletsPerRequest = Math.max(1, bulletsPerRequest);
+    }
+
+    /**
+     * One rewrite per bullet, in the same order. {@code targetSkills}
+     * (e.g. an analysis' missingKeywords) defaults to the JD's dictionary
+     * skills. Blank bullets come back blank.
+     */
+    public List<Rewrite> rewrite(List<String> bullets, String jobDescription, List<String> targetSkills) {
+        String jdContext = promptBuilder.compactJobDescription(jobDescription, jdMaxTokens);
+        List<String> skills = targetSkills != null ? targetSkills : jdSkills(jobDescription);
+        String contextDigest = AnalysisCacheKeys.digest(jdContext, String.join("\n", skills));
+
+        // Identical bullets share one lookup and one rewrite
+        Map<String, String> improved = new LinkedHashMap<>();
+        for (String bullet : bullets) {
+            String text = normalize(bullet);
+            if (!text.isEmpty()) {
+                improved.put(text, null);
+            }
+        }
+        List<String> unique = new ArrayList<>(improved.keySet());
+        List<String> keys = new ArrayList<>(unique.size());
+        for (String text : unique) {
+            keys.add(KEY_PREFIX + AnalysisCacheKeys.digest(text, contextDigest));
+        }
+
+        List<String> cachedValues = lookup(keys);
+        List<String> misses = new ArrayList<>();
+        for (int i = 0; i < unique.size(); i++) {
+            String value = cachedValues.get(i);
+            if (value != null) {
+                improved.put(unique.get(i), value);
+            } else {
+                misses.add(unique.get(i));
+            }
+        }
+        Set<String> fromCache = new LinkedHashSet<>(improved.keySet());
+        fromCache.removeAll(misses);
+
+        if (!misses.isEmpty()) {
+            List<CompletableFuture<List<String>>> calls = new ArrayList<>();
+            for (int from = 0; from < misses.size(); from += bulletsPerRequest) {
+                List<String> chunk = misses.subList(from, Math.min(from + bulletsPerRequest, misses.size()));
+                calls.add(CompletableFuture.supplyAsync(() -> rewriteChunk(chunk, jdContext, skills),
+                        analysisExecutor));
+            }
+            Map<String, String> fresh = new LinkedHashMap<>();
+            RuntimeException failure = null;
+            for (int c = 0; c < calls.size(); c++) {
+                List<String> rewrites;
+                try {
+                    rewrites = calls.get(c).join();
+                } catch (CompletionException e) {
+                    if (failure == null) {
+                        failure = e.getCause() instanceof RuntimeException runtime ? runtime : e;
+                    }
+                    continue;
+                }
+                for (int i = 0; i < rewrites.size(); i++) {
+                    String text = misses.get(c * bulletsPerRequest + i);
+                    if (rewrites.get(i) != null) {
+                        improved.put(text, rewrites.get(i));
+                        fresh.put(KEY_PREFIX + AnalysisCacheKeys.digest(text, contextDigest), rewrites.get(i));
+                    }
+                }
+            }
+            // Whatever did come back is paid for; keep it even if another request failed
+            store(fresh);
+            if (failure != null) {
+                throw failure;
+            }
+        }
+
+        List<Rewrite> result = new ArrayList<>(bullets.size());
+        for (String bullet : bullets) {
+            String text = normalize(bullet);
+            String rewrite = text.isEmpty() ? "" : improved.get(text);
+            // A bullet Gemini skipped keeps its own text
+            result.add(new Rewrite(bullet, rewrite != null ? rewrite : text, fromCache.contains(text)));
+        }
+        return result;
+    }
+
+    private List<String> rewriteChunk(List<String> bullets, String jdContext, List<String> skills) {
+        String prompt = promptBuilder.buildBulletRewrite(jdContext, skills, bullets);
+        int expectedOutputTokens = 8;
+        for (String bullet : bullets) {
+            expectedOutputTokens += AnalysisPromptBuilder.estimateTokens(bullet) + OUTPUT_OVERHEAD_TOKENS;
+        }
+        String output = resumeAnalyzerService.complete(prompt, expectedOutputTokens);
+
+        JsonNode root;
+        try {
+            root = objectMapper.readTree(ResumeAnalyzerService.extractJsonBlock(output));
+        } catch (Exception e) {
+            throw new IllegalStateException("Unparseable bullet rewrites: " + e.getMessage(), e);
+        }
+        List<String> rewrites = new ArrayList<>(Collections.nCopies(bullets.size(), null));
+        for (JsonNode entry : root.path("r")) {
+            int index = entry.path("i").asInt(-1);
+            String text = ResumeAnalyzerService.stripMarkdown(entry.path("t").asText("")).strip();
+            if (index >= 0 && index < bullets.size() && !text.isEmpty()) {
+                rewrites.set(index, text);
+            }
+        }
+        return rewrites;
+    }
+
+    private List<String> jdSkills(String jobDescription) {
+        Set<String> skills = new LinkedHashSet<>();
+        keywordService.forEachKeyword(jobDescription, (keyword, offset, skill) -> {
+            if (skill) {
+                skills.add(keyword);
+            }
+        });
+        return new ArrayList<>(skills);
+    }
+
+    private List<String> lookup(List<String> keys) {
+        if (keys.isEmpty()) {
+            return List.of();
+        }
+        try {
+            List<String> values = redisTemplate.opsForValue().multiGet(keys);
+            if (values != null && values.size() == keys.size()) {
+                return values;
+            }
+        } catch (DataAccessException e) {
+            // Everything is a miss; the rewrites still work without Redis
+            log.warn("Bullet rewrite cache lookup failed: {}", e.getMessage());
+        }
+        return Collections.nCopies(keys.size(), null);
+    }
+
+    private void store(Map<String, String> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        try {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection redis = (StringRedisConnection) connection;
+                entries.forEach((key, value) -> redis.setEx(key, cacheTtl.toSeconds(), value));
+                return null;
+            });
+        } catch (DataAccessException e) {
+            log.warn("Failed to cache bullet rewrites: {}", e.getMessage());
+        }
+    }
+
+    private static String normalize(String bullet) {
+        return bullet == null ? "" : AnalysisPromptBuilder.normalize(bullet).replaceFirst("^- ", "")
+                .replace('\n', ' ');
+    }
+}
@@ -1,36 +1,283 @@
 package com.lockin.rewrite.service;
 
-import org.apache.poi.xwpf.extractor.XWPFWordExtractor;
-import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
 import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.IOUtils;
+import org.apache.pdfbox.io.RandomAccessRead;
+import org.apache.pdfbox.io.RandomAccessReadBuffer;
+import org.apache.pdfbox.io.RandomAccessReadBufferedFile;
+import org.apache.pdfbox.io.RandomAccessStreamCache;
 import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.encryption.InvalidPasswordException;
 import org.apache.pdfbox.text.PDFTextStripper;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.io.ByteArrayInputStream;
+import javax.xml.stream.XMLStreamException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
 
+/**
+ * Extracts plain text from resumes. Both parsers read straight from the
+ * stream they are given; nothing is copied on the way in beyond the one
+ * buffer (or scratch file) PDFBox parses from. DOCX text is pulled from the
+ * document XML by {@link DocxTextExtractor} rather than POI's object model.
+ *
+ * PDFs larger than {@code resume.pdf.scratch-threshold-bytes} are spooled to
+ * a temp file and parsed with a file-backed stream cache, so a 20 MB scan
+ * doesn't land on the heap. PDFs with at least
+ * {@code resume.pdf.parallel-min-pages} pages are split into page ranges
+ * that are extracted concurrently on the {@code pdfExtractionPool}, each on
+ * its own {@link PDDocument} over the shared source (documents are not
+ * thread-safe), and stitched back together in page order.
+ *
+ * PDF page furniture (page numbers, and headers/footers repeated on every
+ * page) is stripped here, while page boundaries are still known, so the text
+ * that is cached, prompted, diffed and returned is free of it and of page
+ * markers. DOCX text has no pages and is returned as extracted.
+ */
 @Service
 public class DocumentParserService {
 
-    public String parseDocx(byte[] fileData) {
-        try (ByteArrayInputStream inputStream = new ByteArrayInputStream(fileData);
-                XWPFDocument document = new XWPFDocument(inputStream);
-                XWPFWordExtractor extractor = new XWPFWordExtractor(document)) {
+    // Ends each page in PDFBox's output so page headers/footers can be told apart; consumed
+    // by stripPageFurniture before the text leaves this class
+    private static final String PAGE_BREAK = "\f";
 
-            return extractor.getText();
+    // "Page 2", "2 of 3", "- 2 -", "2/3"; only dropped as a page's first or last line
+    private static final Pattern PAGE_NUMBER = Pattern.compile(
+            "(?i)^[-\u2013\u2014\\s]*(page\\s*)?\\d{1,3}(\\s*(of|/)\\s*\\d{1,3})?[-\u2013\u2014\\s]*$");
+    // How many lines at each end of a page are candidates for a running header/footer
+    private static final int FURNITURE_LINES = 2;
+    private static final int MAX_FURNITURE_LENGTH = 80;
 
-        } catch (IOException e) {
-            throw new RuntimeException("Failed to parse DOCX file", e);
+    private final int maxPages;
+    private final ForkJoinPool pdfExtractionPool;
+    private final long scratchThresholdBytes;
+    private final int parallelMinPages;
+    private final int minPagesPerTask;
+    private final long maxDocxPartBytes;
+    private final ObservationRegistry observationRegistry;
+
+    public DocumentParserService(@Value("${resume.max-pages:50}") int maxPages,
+            @Qualifier("pdfExtractionPool") ForkJoinPool pdfExtractionPool,
+            @Value("${resume.pdf.scratch-threshold-bytes:4194304}") long scratchThresholdBytes,
+            @Value("${resume.pdf.parallel-min-pages:6}") int parallelMinPages,
+            @Value("${resume.pdf.min-pages-per-task:2}") int minPagesPerTask,
+            @Value("${resume.docx.max-part-bytes:33554432}") long maxDocxPartBytes,
+            ObservationRegistry observationRegistry) {
+        this.maxPages = maxPages;
+        this.pdfExtractionPool = pdfExtractionPool;
+        this.scratchThresholdBytes = scratchThresholdBytes;
+        this.parallelMinPages = parallelMinPages;
+        this.minPagesPerTask = Math.max(1, minPagesPerTask);
+        this.maxDocxPartBytes = maxDocxPartBytes;
+        this.observationRegistry = observationRegistry;
+    }
+
+    /**
+     * @param size the document's length if known (e.g. from S3), otherwise -1
+     * @throws IOException if reading {@code in} fails (the upload, not the document)
+     */
+    public String parse(InputStream in, DocumentType type, long size) throws IOException {
+        return Observation.createNotStarted("resume.parse", observationRegistry)
+                .lowCardinalityKeyValue("type", type.name().toLowerCase(Locale.ROOT))
+                .observeChecked(() -> switch (type) {
+                    case PDF -> parsePdf(in, size);
+                    case DOCX -> parseDocx(in);
+                });
+    }
+
+    public String parseDocx(InputStream in) {
+        try {
+            return DocxTextExtractor.extract(in, maxDocxPartBytes);
+        } catch (IOException | XMLStreamException e) {
+            // Broken zips, non-Word archives and oversized parts alike
+            throw new DocumentRejectedException(DocumentRejectedException.Reason.MALFORMED,
+                    "Failed to parse DOCX file", e);
         }
     }
 
-    public String parsePdf(byte[] fileData) {
-        try (PDDocument document = Loader.loadPDF(fileData)) {
-            PDFTextStripper stripper = new PDFTextStripper();
-            return stripper.getText(document);
+    public String parsePdf(InputStream in, long size) throws IOException {
+        if (size < 0 || size > scratchThresholdBytes) {
+            // Unknown or large: parse from disk
+            Path scratch = Files.createTempFile("resume-", ".pdf");
+            try {
+                Files.copy(in, scratch, StandardCopyOption.REPLACE_EXISTING);
+                return parsePdf(() -> new RandomAccessReadBufferedFile(scratch.toFile()),
+                        IOUtils.createTempFileOnlyStreamCache());
+            } finally {
+                Files.deleteIfExists(scratch);
+            }
+        }
+        // Small: one exactly-sized array, shared read-only by every range's document
+        byte[] buffer = new byte[(int) size];
+        int read = in.readNBytes(buffer, 0, buffer.length);
+        byte[] data = read == buffer.length ? buffer : Arrays.copyOf(buffer, read);
+        return parsePdf(() -> new RandomAccessReadBuffer(data), IOUtils.createMemoryOnlyStreamCache());
+    }
+
+    /** Opens an independent reader over the same PDF bytes. */
+    @FunctionalInterface
+    private interface PdfSource {
+        RandomAccessRead open() throws IOException;
+    }
+
+    private String parsePdf(PdfSource source, RandomAccessStreamCache.StreamCacheCreateFunction streamCache) {
+        try (PDDocument document = load(source, streamCache)) {
+            // Both checks are cheap; text extraction is what we are guarding
+            if (!document.getCurrentAccessPermission().canExtractContent()) {
+                throw new DocumentRejectedException(DocumentRejectedException.Reason.ENCRYPTED,
+                        "PDF does not permit text extraction");
+            }
+            int pages = document.getNumberOfPages();
+            if (pages > maxPages) {
+                throw new DocumentRejectedException(DocumentRejectedException.Reason.TOO_LARGE,
+                        "PDF has more than " + maxPages + " pages");
+            }
+            if (pages < parallelMinPages || pdfExtractionPool.getParallelism() < 2) {
+                return stripPageFurniture(extract(document, 1, pages));
+            }
+
+            int ranges = Math.max(1, Math.min(pdfExtractionPool.getParallelism(), pages / minPagesPerTask));
+            int perRange = (pages + ranges - 1) / ranges;
+            AtomicBoolean abandoned = new AtomicBoolean();
+            List<ForkJoinTask<String>> tasks = new ArrayList<>();
+            for (int start = 1 + perRange; start <= pages; start += perRange) {
+                int first = start;
+                int last = Math.min(pages, start + perRange - 1);
+                tasks.add(pdfExtractionPool.submit(() -> {
+                    if (abandoned.get()) {
+                        return "";
+                    }
+                    try (PDDocument copy = load(source, streamCache)) {
+                        return extract(copy, first, last);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }));
+            }
+            boolean joined = false;
+            try {
+                // The first range reuses the document we already loaded, on this thread
+                StringBuilder text = new StringBuilder(extract(document, 1, Math.min(pages, perRange)));
+                for (ForkJoinTask<String> task : tasks) {
+                    text.append(task.join());
+                }
+                joined = true;
+                return stripPageFurniture(text.toString());
+            } finally {
+                if (!joined) {
+                    // Queued ranges skip their work; running ones still read the source (possibly the
+                    // caller's scratch file), so wait them out rather than cancel and return under them
+                    abandoned.set(true);
+                    for (ForkJoinTask<String> task : tasks) {
+                        task.quietlyJoin();
+                    }
+                }
+            }
+        } catch (UncheckedIOException e) {
+            throw new DocumentRejectedException(DocumentRejectedException.Reason.MALFORMED,
+                    "Failed to parse PDF file", e.getCause());
         } catch (IOException e) {
-            throw new RuntimeException("Failed to parse PDF file", e);
+            throw new DocumentRejectedException(DocumentRejectedException.Reason.MALFORMED,
+                    "Failed to parse PDF file", e);
+        }
+    }
+
+    private static PDDocument load(PdfSource source, RandomAccessStreamCache.StreamCacheCreateFunction streamCache)
+            throws IOException {
+        try {
+            return Loader.loadPDF(source.open(), streamCache);
+        } catch (InvalidPasswordException e) {
+            throw new DocumentRejectedException(DocumentRejectedException.Reason.ENCRYPTED,
+                    "Password-protected PDFs are not supported", e);
         }
     }
+
+    /**
+     * Removes a page number when it is the first or last non-blank line of a
+     * page, and lines that open or close a page when they already opened or
+     * closed an earlier one (a running header such as the name, or a footer);
+     * their first appearance stays. Pages are delimited by
+     * {@link #PAGE_BREAK}, as {@link #extract} emits them.
+     */
+    private static String stripPageFurniture(String text) {
+        String[] pages = text.split(PAGE_BREAK, -1);
+        Set<String> seenAtEdges = new HashSet<>();
+        StringBuilder out = new StringBuilder(text.length());
+        for (String page : pages) {
+            List<String> lines = new ArrayList<>(page.lines().toList());
+            Set<Integer> edges = edgeLines(lines);
+            int first = 0;
+            while (first < lines.size() && lines.get(first).isBlank()) {
+                first++;
+            }
+            int last = lines.size() - 1;
+            while (last >= 0 && lines.get(last).isBlank()) {
+                last--;
+            }
+            for (int i = 0; i < lines.size(); i++) {
+                String line = lines.get(i).strip();
+                if ((i == first || i == last) && PAGE_NUMBER.matcher(line).matches()) {
+                    continue;
+                }
+                if (pages.length > 1 && edges.contains(i) && !seenAtEdges.add(furnitureKey(line))) {
+                    continue;
+                }
+                out.append(lines.get(i)).append('\n');
+            }
+        }
+        return out.toString();
+    }
+
+    /** Indexes of the first and last few non-blank, short lines of a page. */
+    private static Set<Integer> edgeLines(List<String> lines) {
+        Set<Integer> edges = new HashSet<>();
+        for (int i = 0, found = 0; i < lines.size() && found < FURNITURE_LINES; i++) {
+            if (!lines.get(i).isBlank()) {
+                found++;
+                if (lines.get(i).strip().length() <= MAX_FURNITURE_LENGTH) {
+                    edges.add(i);
+                }
+            }
+        }
+        for (int i = lines.size() - 1, found = 0; i >= 0 && found < FURNITURE_LINES; i--) {
+            if (!lines.get(i).isBlank()) {
+                found++;
+                if (lines.get(i).strip().length() <= MAX_FURNITURE_LENGTH) {
+                    edges.add(i);
+                }
+            }
+        }
+        return edges;
+    }
+
+    private static String furnitureKey(String line) {
+        // Footers often differ only in a number ("Page 2", "Jane Doe - 2")
+        return line.toLowerCase(Locale.ROOT).replaceAll("\\d+", "#");
+    }
+
+    private static String extract(PDDocument document, int startPage, int endPage) throws IOException {
+        PDFTextStripper stripper = new PDFTextStripper();
+        stripper.setStartPage(startPage);
+        stripper.setEndPage(endPage);
+        stripper.setPageEnd(stripper.getPageEnd() + PAGE_BREAK);
+        return stripper.getText(document);
+    }
 }
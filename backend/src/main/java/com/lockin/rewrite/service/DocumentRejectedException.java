@@ -0,0 +1,29 @@
+package com.lockin.rewrite.service;
+
+/**
+ * Thrown when an uploaded resume is refused before or during parsing. The
+ * reason is the user's to fix (a different file), so callers should surface
+ * it as a 4xx rather than a server error.
+ */
+public class DocumentRejectedException extends RuntimeException {
+
+    public enum Reason {
+        TOO_LARGE, UNSUPPORTED_TYPE, ENCRYPTED, MALFORMED
+    }
+
+    private final Reason reason;
+
+    public DocumentRejectedException(Reason reason, String message) {
+        super(message);
+        this.reason = reason;
+    }
+
+    public DocumentRejectedException(Reason reason, String message, Throwable cause) {
+        super(message, cause);
+        this.reason = reason;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+}
@@ -0,0 +1,49 @@
+package com.lockin.rewrite.service;
+
+/**
+ * Resume formats we can extract text from, identified by their leading
+ * bytes rather than the file name the user happened to give them.
+ */
+public enum DocumentType {
+    PDF, DOCX;
+
+    /** Bytes needed by {@link #sniff}. */
+    static final int HEADER_LENGTH = 8;
+
+    private static final byte[] PDF_MAGIC = {'%', 'P', 'D', 'F', '-'};
+    private static final byte[] ZIP_MAGIC = {'P', 'K', 0x03, 0x04};
+    private static final byte[] OLE2_MAGIC = {(byte) 0xD0, (byte) 0xCF, 0x11, (byte) 0xE0};
+
+    /**
+     * Identifies a document from its first {@code length} bytes.
+     *
+     * @throws DocumentRejectedException if the bytes are not a PDF or a DOCX
+     */
+    static DocumentType sniff(byte[] header, int length) {
+        if (startsWith(header, length, PDF_MAGIC)) {
+            return PDF;
+        }
+        if (startsWith(header, length, ZIP_MAGIC)) {
+            return DOCX;
+        }
+        if (startsWith(header, length, OLE2_MAGIC)) {
+            // Word 97-2003, or an OOXML file wrapped by password protection
+            throw new DocumentRejectedException(DocumentRejectedException.Reason.UNSUPPORTED_TYPE,
+                    "Legacy .doc and password-protected Word files are not supported; save as .docx or PDF");
+        }
+        throw new DocumentRejectedException(DocumentRejectedException.Reason.UNSUPPORTED_TYPE,
+                "Resume must be a PDF or DOCX file");
+    }
+
+    private static boolean startsWith(byte[] header, int length, byte[] magic) {
+        if (length < magic.length) {
+            return false;
+        }
+        for (int i = 0; i < magic.length; i++) {
+            if (header[i] != magic[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,296 @@
+package com.lockin.rewrite.service;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Plain text of a DOCX without building POI's object model.
+ *
+ * Reads the zip as a stream and pulls only the main document part and any
+ * header/footer parts through a StAX reader; styles, numbering, themes and
+ * media are passed over without being parsed or kept. The text layout
+ * follows {@code XWPFWordExtractor}: headers first, then each body paragraph
+ * on its own line, table cells separated by tabs and rows by newlines, then
+ * footers. Deleted revisions, field codes, drawings and footnote markers are
+ * left out.
+ */
+final class DocxTextExtractor {
+
+    private static final String W = "http://schemas.openxmlformats.org/wordprocessingml/2006/main";
+    private static final String DOCUMENT_PART = "word/document.xml";
+    private static final Pattern HEADER_PART = Pattern.compile("word/header\\d*\\.xml");
+    private static final Pattern FOOTER_PART = Pattern.compile("word/footer\\d*\\.xml");
+
+    // Subtrees with no body text of their own (or text we don't want, like deletions)
+    private static final Set<String> SKIPPED = Set.of("pPr", "rPr", "tblPr", "tblGrid", "trPr", "tcPr", "sectPr",
+            "drawing", "pict", "object", "AlternateContent", "del", "delText", "instrText",
+            "footnoteReference", "endnoteReference", "commentReference");
+
+    private static final XMLInputFactory XML = XMLInputFactory.newFactory();
+
+    static {
+        // Document parts never need a DTD; refusing them rules out XXE and entity bombs
+        XML.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        XML.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    private DocxTextExtractor() {
+    }
+
+    /**
+     * @param maxPartBytes cap on the inflated size of each part we parse,
+     *                     against zip bombs
+     * @throws IOException        if the stream is not a readable zip or has no document part
+     * @throws XMLStreamException if a part is not well-formed XML
+     */
+    static String extract(InputStream in, long maxPartBytes) throws IOException, XMLStreamException {
+        String body = null;
+        Map<String, String> headers = new TreeMap<>();
+        Map<String, String> footers = new TreeMap<>();
+
+        ZipInputStream zip = new ZipInputStream(in);
+        ZipEntry entry;
+        while ((entry = zip.getNextEntry()) != null) {
+            String name = entry.getName();
+            if (name.equals(DOCUMENT_PART)) {
+                body = readPart(zip, maxPartBytes, false);
+            } else if (HEADER_PART.matcher(name).matches()) {
+                headers.put(name, readPart(zip, maxPartBytes, true));
+            } else if (FOOTER_PART.matcher(name).matches()) {
+                footers.put(name, readPart(zip, maxPartBytes, true));
+            }
+            // Anything else is skipped by the next getNextEntry
+        }
+        if (body == null) {
+            throw new IOException("No " + DOCUMENT_PART + " in archive");
+        }
+
+        StringBuilder text = new StringBuilder(body.length() + 256);
+        headers.values().forEach(text::append);
+        text.append(body);
+        footers.values().forEach(text::append);
+        return text.toString();
+    }
+
+    private static String readPart(InputStream part, long maxBytes, boolean headerFooter)
+            throws IOException, XMLStreamException {
+        XMLStreamReader reader = XML.createXMLStreamReader(new BoundedInputStream(part, maxBytes));
+        try {
+            StringBuilder out = new StringBuilder();
+            while (reader.hasNext()) {
+                if (reader.next() == XMLStreamConstants.START_ELEMENT) {
+                    blocks(reader, out, headerFooter);
+                }
+            }
+            return out.toString();
+        } finally {
+            reader.close();
+        }
+    }
+
+    /** Paragraphs and tables up to the end of the current element, one per line. */
+    private static void blocks(XMLStreamReader reader, StringBuilder out, boolean skipEmptyParagraphs)
+            throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            } else if (event == XMLStreamConstants.START_ELEMENT) {
+                if (isW(reader, "p")) {
+                    String text = paragraph(reader);
+                    if (!skipEmptyParagraphs || !text.isEmpty()) {
+                        out.append(text).append('\n');
+                    }
+                } else if (isW(reader, "tbl")) {
+                    table(reader, out);
+                    out.append('\n');
+                } else if (SKIPPED.contains(reader.getLocalName())) {
+                    skip(reader);
+                } else {
+                    // Containers like sdt/sdtContent/customXml: look inside
+                    depth++;
+                }
+            }
+        }
+    }
+
+    private static String paragraph(XMLStreamReader reader) throws XMLStreamException {
+        StringBuilder text = new StringBuilder();
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            } else if (event == XMLStreamConstants.START_ELEMENT) {
+                if (SKIPPED.contains(reader.getLocalName())) {
+                    skip(reader);
+                } else if (isW(reader, "t")) {
+                    text.append(reader.getElementText());
+                } else if (isW(reader, "tab") || isW(reader, "ptab")) {
+                    text.append('\t');
+                    skip(reader);
+                } else if (isW(reader, "br") || isW(reader, "cr")) {
+                    text.append('\n');
+                    skip(reader);
+                } else {
+                    // Runs, hyperlinks, insertions, smart tags, fields...
+                    depth++;
+                }
+            }
+        }
+        return text.toString();
+    }
+
+    /** Cells joined by tabs, one row per line, as XWPFWordExtractor lays them out. */
+    private static void table(XMLStreamReader reader, StringBuilder out) throws XMLStreamException {
+        List<String> cells = new ArrayList<>();
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+                if (isW(reader, "tr")) {
+                    out.append(String.join("\t", cells)).append('\n');
+                    cells.clear();
+                }
+            } else if (event == XMLStreamConstants.START_ELEMENT) {
+                if (isW(reader, "tc")) {
+                    cells.add(cell(reader));
+                } else if (SKIPPED.contains(reader.getLocalName())) {
+                    skip(reader);
+                } else {
+                    depth++;
+                }
+            }
+        }
+    }
+
+    /**
+     * A cell's text as {@code XWPFTableCell.getTextRecursively} builds it: a
+     * paragraph is followed by a tab and a nested table by a newline unless
+     * it is the cell's last element, and nested cells run together.
+     */
+    private static String cell(XMLStreamReader reader) throws XMLStreamException {
+        StringBuilder text = new StringBuilder();
+        cellContent(reader, text);
+        return text.toString();
+    }
+
+    private static void cellContent(XMLStreamReader reader, StringBuilder out) throws XMLStreamException {
+        char separator = 0;
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            } else if (event == XMLStreamConstants.START_ELEMENT) {
+                boolean paragraph = isW(reader, "p");
+                if (paragraph || isW(reader, "tbl")) {
+                    if (separator != 0) {
+                        out.append(separator);
+                    }
+                    if (paragraph) {
+                        out.append(paragraph(reader));
+                        separator = '\t';
+                    } else {
+                        nestedTable(reader, out);
+                        separator = '\n';
+                    }
+                } else if (SKIPPED.contains(reader.getLocalName())) {
+                    skip(reader);
+                } else {
+                    depth++;
+                }
+            }
+        }
+    }
+
+    private static void nestedTable(XMLStreamReader reader, StringBuilder out) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            } else if (event == XMLStreamConstants.START_ELEMENT) {
+                if (isW(reader, "tc")) {
+                    cellContent(reader, out);
+                } else if (SKIPPED.contains(reader.getLocalName())) {
+                    skip(reader);
+                } else {
+                    depth++;
+                }
+            }
+        }
+    }
+
+    private static boolean isW(XMLStreamReader reader, String localName) {
+        return localName.equals(reader.getLocalName()) && W.equals(reader.getNamespaceURI());
+    }
+
+    /** Advances past the end of the current element. */
+    private static void skip(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    /** Fails a part once more than {@code max} bytes have been inflated from it. */
+    private static final class BoundedInputStream extends FilterInputStream {
+        private long remaining;
+
+        private BoundedInputStream(InputStream in, long max) {
+            super(in);
+            this.remaining = max;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) {
+                count(n);
+            }
+            return n;
+        }
+
+        private void count(int n) throws IOException {
+            remaining -= n;
+            if (remaining < 0) {
+                throw new IOException("Document part exceeds the size limit");
+            }
+        }
+
+        @Override
+        public void close() {
+            // The zip stream outlives each part
+        }
+    }
+}
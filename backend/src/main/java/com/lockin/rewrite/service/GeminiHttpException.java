@@ -0,0 +1,36 @@
+package com.lockin.rewrite.service;
+
+import java.util.Optional;
+
+/**
+ * Non-2xx response from the Gemini API.
+ */
+public class GeminiHttpException extends RuntimeException {
+
+    private final int statusCode;
+    private final String responseBody;
+    private final String retryAfterHeader;
+
+    public GeminiHttpException(int statusCode, String responseBody, String retryAfterHeader) {
+        super("Gemini API returned HTTP " + statusCode + ": " + responseBody);
+        this.statusCode = statusCode;
+        this.responseBody = responseBody;
+        this.retryAfterHeader = retryAfterHeader;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    public String getResponseBody() {
+        return responseBody;
+    }
+
+    public Optional<String> getRetryAfterHeader() {
+        return Optional.ofNullable(retryAfterHeader);
+    }
+
+    public boolean isRateLimited() {
+        return statusCode == 429;
+    }
+}
@@ -0,0 +1,24 @@
+package com.lockin.rewrite.service;
+
+/**
+ * Thrown when a Gemini call cannot be admitted or keeps being rate limited;
+ * callers should surface it as 429 with the suggested retry delay.
+ */
+public class GeminiOverloadedException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public GeminiOverloadedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public GeminiOverloadedException(String message, long retryAfterSeconds, Throwable cause) {
+        super(message, cause);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,284 @@
+package com.lockin.rewrite.service;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Admission control for Gemini calls.
+ *
+ * Two token buckets enforce the requests-per-minute and tokens-per-minute
+ * quota, and an AIMD concurrency limit adapts to what the API actually
+ * sustains: it grows by one slot per "window" of fast successes, shrinks
+ * gently when latency exceeds the target and halves on a 429, which also
+ * pauses admission for the server's retry delay. Callers get a
+ * {@link CompletableFuture} that completes when they are admitted, so waiting
+ * never pins a platform thread, and fails if admission takes longer than the
+ * queue wait limit.
+ */
+@Service
+public class GeminiRateLimiter implements DisposableBean {
+
+    public enum Outcome {
+        SUCCESS, RATE_LIMITED, FAILED
+    }
+
+    private final double requestsPerMinute;
+    private final double tokensPerMinute;
+    private final double minLimit;
+    private final double maxLimit;
+    private final long latencyTargetNanos;
+    private final int maxQueue;
+    private final long maxQueueWaitNanos;
+
+    private final Deque<Waiter> queue = new ArrayDeque<>();
+    private final ScheduledExecutorService scheduler;
+    private final LongAdder rateLimitedCount = new LongAdder();
+    private final LongAdder rejectedCount = new LongAdder();
+    private final LongAdder timedOutCount = new LongAdder();
+
+    // Guarded by this
+    private double requestBucket;
+    private double tokenBucket;
+    private long lastRefillNanos;
+    private long pausedUntilNanos;
+    private double limit;
+    private int inFlight;
+    private ScheduledFuture<?> pendingDrain;
+
+    public GeminiRateLimiter(
+            @Value("${gemini.limits.requests-per-minute:60}") double requestsPerMinute,
+            @Value("${gemini.limits.tokens-per-minute:1000000}") double tokensPerMinute,
+            @Value("${gemini.limits.initial-concurrency:4}") double initialLimit,
+            @Value("${gemini.limits.min-concurrency:1}") double minLimit,
+            @Value("${gemini.limits.max-concurrency:32}") double maxLimit,
+            @Value("${gemini.limits.latency-target:30s}") Duration latencyTarget,
+            @Value("${gemini.limits.max-queue:1000}") int maxQueue,
+            @Value("${gemini.limits.max-queue-wait:30s}") Duration maxQueueWait) {
+        this.requestsPerMinute = requestsPerMinute;
+        this.tokensPerMinute = tokensPerMinute;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyTargetNanos = latencyTarget.toNanos();
+        this.maxQueue = maxQueue;
+        this.maxQueueWaitNanos = maxQueueWait.toNanos();
+        this.limit = initialLimit;
+        this.requestBucket = requestsPerMinute;
+        this.tokenBucket = tokensPerMinute;
+        this.lastRefillNanos = System.nanoTime();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "gemini-limiter");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Asks for admission of one request expected to consume
+     * {@code estimatedTokens}. The future fails with
+     * {@link GeminiOverloadedException} when the wait queue is full or the
+     * caller is not admitted within the queue wait limit.
+     */
+    public CompletableFuture<Permit> acquire(int estimatedTokens) {
+        Waiter waiter = new Waiter(Math.max(1, estimatedTokens));
+        synchronized (this) {
+            if (queue.size() >= maxQueue) {
+                rejectedCount.increment();
+                return CompletableFuture.failedFuture(
+                        new GeminiOverloadedException("Gemini request queue is full", retryAfterSeconds()));
+            }
+            queue.addLast(waiter);
+            waiter.timeout = scheduler.schedule(() -> expire(waiter), maxQueueWaitNanos, TimeUnit.NANOSECONDS);
+        }
+        drain();
+        return waiter.future;
+    }
+
+    private void expire(Waiter waiter) {
+        synchronized (this) {
+            if (!queue.remove(waiter)) {
+                // Admitted in the meantime
+                return;
+            }
+        }
+        timedOutCount.increment();
+        waiter.future.completeExceptionally(
+                new GeminiOverloadedException("Timed out waiting for Gemini admission", retryAfterSeconds()));
+    }
+
+    private void drain() {
+        List<Waiter> admitted = new ArrayList<>();
+        synchronized (this) {
+            long now = System.nanoTime();
+            refill(now);
+
+            while (!queue.isEmpty()) {
+                if (now < pausedUntilNanos) {
+                    scheduleDrain(pausedUntilNanos - now);
+                    break;
+                }
+                if (inFlight >= (int) limit) {
+                    // A release will drain again
+                    break;
+                }
+                Waiter next = queue.peekFirst();
+                double tokensNeeded = Math.min(next.tokens, tokensPerMinute);
+                if (requestBucket < 1 || tokenBucket < tokensNeeded) {
+                    double requestWait = requestBucket < 1 ? (1 - requestBucket) / requestsPerMinute : 0;
+                    double tokenWait = tokenBucket < tokensNeeded ? (tokensNeeded - tokenBucket) / tokensPerMinute : 0;
+                    long waitNanos = (long) (Math.max(requestWait, tokenWait) * TimeUnit.MINUTES.toNanos(1));
+                    scheduleDrain(Math.max(waitNanos, TimeUnit.MILLISECONDS.toNanos(10)));
+                    break;
+                }
+
+                queue.pollFirst();
+                requestBucket -= 1;
+                tokenBucket -= tokensNeeded;
+                inFlight++;
+                admitted.add(next);
+            }
+        }
+        // Complete outside the lock; dependents may run inline
+        for (Waiter waiter : admitted) {
+            waiter.timeout.cancel(false);
+            waiter.future.complete(new Permit(waiter.tokens));
+        }
+    }
+
+    private void refill(long now) {
+        double minutes = (now - lastRefillNanos) / (double) TimeUnit.MINUTES.toNanos(1);
+        lastRefillNanos = now;
+        requestBucket = Math.min(requestsPerMinute, requestBucket + minutes * requestsPerMinute);
+        tokenBucket = Math.min(tokensPerMinute, tokenBucket + minutes * tokensPerMinute);
+    }
+
+    private void scheduleDrain(long delayNanos) {
+        if (pendingDrain != null && !pendingDrain.isDone()
+                && pendingDrain.getDelay(TimeUnit.NANOSECONDS) <= delayNanos) {
+            return;
+        }
+        if (pendingDrain != null) {
+            pendingDrain.cancel(false);
+        }
+        pendingDrain = scheduler.schedule(this::drain, delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private synchronized void onRelease(Outcome outcome, long latencyNanos, int reservedTokens, int actualTokens,
+            Duration retryAfter) {
+        inFlight--;
+        if (actualTokens > 0) {
+            // Settle the estimate against what Gemini reported
+            tokenBucket = Math.min(tokensPerMinute, tokenBucket + reservedTokens - actualTokens);
+        }
+        switch (outcome) {
+            case SUCCESS -> {
+                if (latencyNanos <= latencyTargetNanos) {
+                    limit = Math.min(maxLimit, limit + 1.0 / limit);
+                } else {
+                    limit = Math.max(minLimit, limit * 0.9);
+                }
+            }
+            case RATE_LIMITED -> {
+                rateLimitedCount.increment();
+                limit = Math.max(minLimit, limit / 2);
+                long resumeAt = System.nanoTime() + retryAfter.toNanos();
+                pausedUntilNanos = Math.max(pausedUntilNanos, resumeAt);
+            }
+            case FAILED -> {
+                // Not a capacity signal either way
+            }
+        }
+    }
+
+    private synchronized long retryAfterSeconds() {
+        long pausedFor = pausedUntilNanos - System.nanoTime();
+        return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(Math.max(pausedFor, 0)) + 1);
+    }
+
+    public synchronized double getLimit() {
+        return limit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    public synchronized int getQueued() {
+        return queue.size();
+    }
+
+    public long getRateLimitedCount() {
+        return rateLimitedCount.sum();
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    public long getTimedOutCount() {
+        return timedOutCount.sum();
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdownNow();
+    }
+
+    private static final class Waiter {
+        private final int tokens;
+        private final CompletableFuture<Permit> future = new CompletableFuture<>();
+        // Set under the limiter's lock before the waiter can be admitted
+        private ScheduledFuture<?> timeout;
+
+        private Waiter(int tokens) {
+            this.tokens = tokens;
+        }
+    }
+
+    /**
+     * One admitted request. Exactly one of the release methods must be called
+     * when the request is over; later calls are ignored.
+     */
+    public final class Permit {
+        private final int reservedTokens;
+        private final long startNanos = System.nanoTime();
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(int reservedTokens) {
+            this.reservedTokens = reservedTokens;
+        }
+
+        /** @param actualTokens tokens Gemini reports for the call, or 0 if unknown */
+        public void success(int actualTokens) {
+            release(Outcome.SUCCESS, actualTokens, Duration.ZERO);
+        }
+
+        public void rateLimited(Duration retryAfter) {
+            release(Outcome.RATE_LIMITED, 0, retryAfter);
+        }
+
+        public void failed() {
+            release(Outcome.FAILED, 0, Duration.ZERO);
+        }
+
+        private void release(Outcome outcome, int actualTokens, Duration retryAfter) {
+            if (released.compareAndSet(false, true)) {
+                onRelease(outcome, System.nanoTime() - startNanos, reservedTokens, actualTokens, retryAfter);
+                drain();
+            }
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.lockin.rewrite.service;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Non-blocking HTTP transport for the Gemini REST API on the JDK
+ * {@link HttpClient} (pooled keep-alive connections, HTTP/2 multiplexing).
+ *
+ * Request bodies above a threshold are gzip-encoded and gzip responses are
+ * accepted for unary calls. Every call has a response deadline (time to
+ * headers) and a total deadline. Non-2xx responses complete the future with
+ * {@link GeminiHttpException}.
+ */
+@Service
+public class GeminiTransport {
+
+    private final HttpClient httpClient;
+    private final ExecutorService analysisExecutor;
+    private final String apiKey;
+    private final Duration responseTimeout;
+    private final Duration totalTimeout;
+    private final boolean gzipRequests;
+    private final int gzipMinBytes;
+
+    public GeminiTransport(HttpClient geminiHttpClient,
+            @Qualifier("analysisExecutor") ExecutorService analysisExecutor,
+            @Value("${gemini.api.key}") String apiKey,
+            @Value("${gemini.http.response-timeout:60s}") Duration responseTimeout,
+            @Value("${gemini.http.total-timeout:120s}") Duration totalTimeout,
+            @Value("${gemini.http.gzip-requests:true}") boolean gzipRequests,
+            @Value("${gemini.http.gzip-min-bytes:4096}") int gzipMinBytes) {
+        this.httpClient = geminiHttpClient;
+        this.analysisExecutor = analysisExecutor;
+        this.apiKey = apiKey;
+        this.responseTimeout = responseTimeout;
+        this.totalTimeout = totalTimeout;
+        this.gzipRequests = gzipRequests;
+        this.gzipMinBytes = gzipMinBytes;
+    }
+
+    /**
+     * POSTs a JSON body and completes with the (decompressed) response body.
+     */
+    public CompletableFuture<String> postJson(URI uri, byte[] jsonBody) {
+        HttpRequest request = newRequest(uri, jsonBody)
+                .header("Accept-Encoding", "gzip")
+                .build();
+
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                .thenApply(response -> {
+                    String body = decode(response);
+                    if (response.statusCode() / 100 != 2) {
+                        throw new GeminiHttpException(response.statusCode(), body,
+                                response.headers().firstValue("Retry-After").orElse(null));
+                    }
+                    return body;
+                })
+                .orTimeout(totalTimeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * POSTs a JSON body to a server-sent-events endpoint and hands each line of
+     * the response to {@code lineConsumer} as it arrives. Lines are read on the
+     * analysis executor; the future completes when the stream ends. The stream
+     * is not gzip-negotiated, so each event is delivered as soon as it is sent.
+     *
+     * If the returned future times out or is cancelled, the exchange is
+     * cancelled and the response body closed, which unblocks the reader; no
+     * further lines are delivered after that point.
+     */
+    public CompletableFuture<Void> postStream(URI uri, byte[] jsonBody, Consumer<String> lineConsumer) {
+        HttpRequest request = newRequest(uri, jsonBody)
+                .header("Accept", "text/event-stream")
+                .build();
+        long deadline = System.nanoTime() + totalTimeout.toNanos();
+        AtomicBoolean abandoned = new AtomicBoolean();
+        AtomicReference<InputStream> openBody = new AtomicReference<>();
+
+        CompletableFuture<HttpResponse<InputStream>> exchange =
+                httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofInputStream());
+        CompletableFuture<Void> result = exchange
+                .thenAcceptAsync(response -> {
+                    try (InputStream body = response.body()) {
+                        openBody.set(body);
+                        if (abandoned.get()) {
+                            return;
+                        }
+                        if (response.statusCode() / 100 != 2) {
+                            throw new GeminiHttpException(response.statusCode(),
+                                    new String(body.readAllBytes(), StandardCharsets.UTF_8),
+                                    response.headers().firstValue("Retry-After").orElse(null));
+                        }
+                        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+                        String line;
+                        while ((line = reader.readLine()) != null && !abandoned.get()) {
+                            if (System.nanoTime() > deadline) {
+                                throw new IOException("Gemini stream exceeded total timeout of " + totalTimeout);
+                            }
+                            lineConsumer.accept(line);
+                        }
+                    } catch (IOException e) {
+                        if (!abandoned.get()) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }
+                }, analysisExecutor)
+                .orTimeout(totalTimeout.toMillis(), TimeUnit.MILLISECONDS);
+
+        result.whenComplete((ignored, error) -> {
+            if (error == null) {
+                return;
+            }
+            abandoned.set(true);
+            exchange.cancel(true);
+            closeQuietly(openBody.get());
+        });
+        return result;
+    }
+
+    private static void closeQuietly(InputStream body) {
+        if (body == null) {
+            return;
+        }
+        try {
+            body.close();
+        } catch (IOException ignored) {
+            // the caller has already given up on this stream
+        }
+    }
+
+    private HttpRequest.Builder newRequest(URI uri, byte[] jsonBody) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri)
+                .timeout(responseTimeout)
+                .header("Content-Type", "application/json")
+                .header("x-goog-api-key", apiKey);
+
+        if (gzipRequests && jsonBody.length >= gzipMinBytes) {
+            builder.header("Content-Encoding", "gzip")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(gzip(jsonBody)));
+        } else {
+            builder.POST(HttpRequest.BodyPublishers.ofByteArray(jsonBody));
+        }
+        return builder;
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static String decode(HttpResponse<byte[]> response) {
+        byte[] body = response.body();
+        boolean gzipped = response.headers().firstValue("Content-Encoding")
+                .map(encoding -> encoding.equalsIgnoreCase("gzip"))
+                .orElse(false);
+        if (!gzipped) {
+            return new String(body, StandardCharsets.UTF_8);
+        }
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to decompress Gemini response", e);
+        }
+    }
+}
@@ -0,0 +1,564 @@
+package com.lockin.rewrite.service;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.lockin.rewrite.cache.AnalysisCacheKeys;
+import com.lockin.rewrite.model.Analysis;
+import com.lockin.rewrite.model.AnalysisResponse;
+import com.lockin.rewrite.model.Suggestion;
+import com.lockin.rewrite.model.resume.ResumeData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Re-analysis of a slightly edited resume or JD without a full Gemini round
+ * trip.
+ *
+ * Every full analysis is a snapshot: its response stays in the analyses cache
+ * under its {@code analysisId}, and the JD it was run against is kept next to
+ * it in Redis. Given a base snapshot, the old and new texts are split into
+ * normalized lines and diffed (line fingerprints, longest common
+ * subsequence). Each changed run of lines is located in the base's structured
+ * resume and patched in place; edited bullets are collected. Gemini then sees
+ * only the previous analysis, the line edits and the edited bullets, and
+ * answers with the updated analysis and rewrites for those bullets, which are
+ * merged into a copy of the base response.
+ *
+ * Re-analyses are snapshots too, but live in their own cache
+ * ({@link AnalysisCacheKeys#INCREMENTAL_CACHE_NAME}) and JD key space under
+ * ids that never equal a full analysis's, so a derived result is never served
+ * as the full analysis of the same resume and JD.
+ *
+ * Whenever that could go wrong the caller is told to run a full analysis
+ * instead (null): the base has expired, too much changed, lines were inserted
+ * (we can't tell which entry they belong to), an edited line can't be found in
+ * the extracted structure or matches more than one place in it, or the delta
+ * answer doesn't parse.
+ */
+@Service
+public class IncrementalAnalysisService {
+
+    private static final Logger log = LoggerFactory.getLogger(IncrementalAnalysisService.class);
+
+    private static final String JD_KEY_PREFIX = "analysis-jd::";
+    private static final String INCREMENTAL_JD_KEY_PREFIX = "analysis-incr-jd::";
+    private static final Pattern LEADING_BULLET = Pattern.compile("^[-•●▪◦‣⁃■*]\\s*");
+    private static final Pattern WHITESPACE = Pattern.compile("[\\s\\p{Zs}]+");
+    // Guards the quadratic diff; real resumes and JDs are a few hundred lines at most
+    private static final int MAX_DIFF_CELLS = 500_000;
+    // Below this, text inside a longer field ("Go", "Led team") could be anywhere; only exact matches count
+    private static final int MIN_PARTIAL_MATCH_LENGTH = 20;
+
+    private final ResumeAnalyzerService resumeAnalyzerService;
+    private final AnalysisPromptBuilder promptBuilder;
+    private final CacheManager cacheManager;
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final Duration snapshotTtl;
+    private final double maxChangedRatio;
+    private final int expectedOutputTokens;
+
+    public IncrementalAnalysisService(ResumeAnalyzerService resumeAnalyzerService,
+            AnalysisPromptBuilder promptBuilder,
+            CacheManager cacheManager,
+            StringRedisTemplate redisTemplate,
+            @Value("${cache.analyses.ttl:24h}") Duration snapshotTtl,
+            @Value("${analysis.incremental.max-changed-ratio:0.3}") double maxChangedRatio,
+            @Value("${analysis.incremental.expected-output-tokens:1000}") int expectedOutputTokens) {
+        this.resumeAnalyzerService = resumeAnalyzerService;
+        this.promptBuilder = promptBuilder;
+        this.cacheManager = cacheManager;
+        this.redisTemplate = redisTemplate;
+        this.snapshotTtl = snapshotTtl;
+        this.maxChangedRatio = maxChangedRatio;
+        this.expectedOutputTokens = expectedOutputTokens;
+        this.objectMapper = new ObjectMapper();
+        this.objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    }
+
+    /**
+     * Keeps the JD behind {@code analysisId} for as long as the analysis
+     * itself is cached, so a later edit can be diffed against it.
+     */
+    public void remember(String analysisId, String jobDescription) {
+        remember(JD_KEY_PREFIX, analysisId, jobDescription);
+    }
+
+    private void remember(String prefix, String analysisId, String jobDescription) {
+        try {
+            redisTemplate.opsForValue().setIfAbsent(prefix + analysisId, jobDescription, snapshotTtl);
+        } catch (DataAccessException e) {
+            // Only costs a full analysis on the next edit
+            log.warn("Failed to store analysis snapshot: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Analysis of {@code resumeText}/{@code jobDescription} derived from the
+     * snapshot {@code baseAnalysisId} (a full analysis or an earlier
+     * re-analysis), or null when a full analysis is needed. A cached full
+     * analysis of the pair is returned as is. The result is cached in the
+     * incremental cache under {@link AnalysisCacheKeys#incremental}; callers
+     * go through {@link AnalysisSingleFlightService#reanalyze}, which serves
+     * repeats from there.
+     */
+    public AnalysisResponse reanalyze(String baseAnalysisId, String resumeKey, String resumeText,
+            String jobDescription) {
+        Cache analyses = cacheManager.getCache(AnalysisCacheKeys.CACHE_NAME);
+        Cache incremental = cacheManager.getCache(AnalysisCacheKeys.INCREMENTAL_CACHE_NAME);
+        String analysisId = AnalysisCacheKeys.incremental(baseAnalysisId, resumeKey, jobDescription);
+        AnalysisResponse base;
+        String baseJobDescription;
+        try {
+            // The real thing beats anything derived
+            AnalysisResponse full = get(analyses, AnalysisCacheKeys.of(resumeKey, jobDescription));
+            if (full != null) {
+                return full;
+            }
+            base = get(analyses, baseAnalysisId);
+            String jdPrefix = JD_KEY_PREFIX;
+            if (base == null) {
+                // Chained edits: the base is itself a re-analysis
+                base = get(incremental, baseAnalysisId);
+                jdPrefix = INCREMENTAL_JD_KEY_PREFIX;
+            }
+            baseJobDescription = base != null ? redisTemplate.opsForValue().get(jdPrefix + baseAnalysisId) : null;
+        } catch (DataAccessException e) {
+            log.warn("Analysis snapshot lookup failed: {}", e.getMessage());
+            return null;
+        }
+        if (base == null || baseJobDescription == null || base.getAnalysis() == null
+                || base.getResumeData() == null || base.getResumeText() == null) {
+            return null;
+        }
+
+        List<String> oldResume = lines(base.getResumeText());
+        List<String> oldJd = lines(baseJobDescription);
+        List<Hunk> resumeEdits = diff(oldResume, lines(resumeText));
+        List<Hunk> jdEdits = diff(oldJd, lines(jobDescription));
+        if (resumeEdits == null || jdEdits == null
+                || changedLines(resumeEdits) > maxChangedRatio * Math.max(1, oldResume.size())
+                || changedLines(jdEdits) > maxChangedRatio * Math.max(1, oldJd.size())) {
+            return null;
+        }
+
+        // Patch a copy of the structured resume and collect the bullets whose text changed
+        ObjectNode resumeData = objectMapper.valueToTree(base.getResumeData());
+        List<TextField> fields = new ArrayList<>();
+        collectFields(resumeData, null, null, fields);
+        Map<ObjectNode, ArrayNode> editedBullets = new IdentityHashMap<>();
+        List<String> replaced = new ArrayList<>();
+        for (Hunk hunk : resumeEdits) {
+            if (!patch(hunk, fields, editedBullets, replaced)) {
+                // A run spanning several entries: pair the lines up instead, any leftovers being removals
+                int paired = Math.min(hunk.removed().size(), hunk.added().size());
+                if (hunk.removed().size() < hunk.added().size()) {
+                    return null;
+                }
+                for (int i = 0; i < hunk.removed().size(); i++) {
+                    List<String> added = i < paired ? List.of(hunk.added().get(i)) : List.of();
+                    if (!patch(new Hunk(List.of(hunk.removed().get(i)), added), fields, editedBullets, replaced)) {
+                        return null;
+                    }
+                }
+            }
+        }
+
+        Map<String, ObjectNode> bulletIds = new LinkedHashMap<>();
+        for (Map.Entry<ObjectNode, ArrayNode> edited : editedBullets.entrySet()) {
+            ObjectNode bullet = edited.getKey();
+            String original = bullet.path("original").asText("");
+            if (original.isBlank()) {
+                removeByIdentity(edited.getValue(), bullet);
+                continue;
+            }
+            // Stands in until the rewrite arrives; a bullet Gemini skips keeps its own text
+            bullet.put("improved", original);
+            bullet.put("accepted", false);
+            bulletIds.put("b" + bulletIds.size(), bullet);
+        }
+
+        List<Suggestion> suggestions = new ArrayList<>();
+        if (base.getSuggestions() != null) {
+            for (Suggestion suggestion : base.getSuggestions()) {
+                if (!overlapsAny(suggestion.getOriginalText(), replaced)) {
+                    suggestions.add(suggestion);
+                }
+            }
+        }
+
+        Analysis analysis = base.getAnalysis();
+        if (!resumeEdits.isEmpty() || !jdEdits.isEmpty()) {
+            JsonNode delta = requestDelta(base.getAnalysis(), resumeEdits, jdEdits, bulletIds);
+            if (delta == null) {
+                return null;
+            }
+            try {
+                if (delta.path("analysis").isObject()) {
+                    analysis = objectMapper.treeToValue(delta.get("analysis"), Analysis.class);
+                }
+                for (JsonNode rewrite : delta.path("bullets")) {
+                    ObjectNode bullet = bulletIds.get(rewrite.path("id").asText());
+                    String improved = rewrite.path("improved").asText("");
+                    if (bullet != null && !improved.isBlank()) {
+                        bullet.put("improved", ResumeAnalyzerService.stripMarkdown(improved));
+                    }
+                }
+                for (JsonNode suggestion : delta.path("suggestions")) {
+                    suggestions.add(objectMapper.treeToValue(suggestion, Suggestion.class));
+                }
+            } catch (Exception e) {
+                log.warn("Unusable incremental analysis, running a full one: {}", e.getMessage());
+                return null;
+            }
+        }
+
+        AnalysisResponse response;
+        try {
+            response = new AnalysisResponse(resumeText, analysis, suggestions, analysis.getMatchScore());
+            response.setResumeData(objectMapper.treeToValue(resumeData, ResumeData.class));
+        } catch (Exception e) {
+            log.warn("Failed to merge incremental analysis: {}", e.getMessage());
+            return null;
+        }
+        response.setMode("incremental");
+        response.setAnalysisId(analysisId);
+        if (incremental != null) {
+            try {
+                incremental.put(analysisId, response);
+            } catch (DataAccessException e) {
+                log.warn("Failed to cache incremental analysis: {}", e.getMessage());
+            }
+        }
+        remember(INCREMENTAL_JD_KEY_PREFIX, analysisId, jobDescription);
+        return response;
+    }
+
+    private static AnalysisResponse get(Cache cache, String key) {
+        return cache != null ? cache.get(key, AnalysisResponse.class) : null;
+    }
+
+    /**
+     * Applies {@code hunk} to the one field holding its removed text; false if
+     * there is no such field, more than one could hold it, or nothing was
+     * removed (an insertion).
+     */
+    private static boolean patch(Hunk hunk, List<TextField> fields, Map<ObjectNode, ArrayNode> editedBullets,
+            List<String> replaced) {
+        if (hunk.removed().isEmpty()) {
+            return false;
+        }
+        String before = String.join(" ", hunk.removed());
+        Located located = find(fields, before);
+        if (located.ambiguous()) {
+            return false;
+        }
+        TextField field = located.field();
+        if (field == null) {
+            // Deleted text that was never extracted (a heading, a stray line) needs no patching
+            return hunk.added().isEmpty() && hunk.removed().size() == 1;
+        }
+        field.replace(before, String.join(" ", hunk.added()));
+        replaced.add(before);
+        if (field.bullet() != null) {
+            editedBullets.put(field.bullet(), field.bullets());
+        }
+        return true;
+    }
+
+    private JsonNode requestDelta(Analysis previous, List<Hunk> resumeEdits, List<Hunk> jdEdits,
+            Map<String, ObjectNode> bulletIds) {
+        StringBuilder edits = new StringBuilder();
+        appendEdits(edits, "**Resume edits** (- removed, + added):", resumeEdits);
+        if (!bulletIds.isEmpty()) {
+            edits.append("**Edited bullets**:\n");
+            bulletIds.forEach((id, bullet) -> edits.append('[').append(id).append("] ")
+                    .append(bullet.path("original").asText()).append('\n'));
+            edits.append('\n');
+        }
+        appendEdits(edits, "**Job description edits** (- removed, + added):", jdEdits);
+
+        String prompt;
+        try {
+            prompt = promptBuilder.buildDelta(objectMapper.writeValueAsString(previous), edits.toString().strip());
+        } catch (Exception e) {
+            return null;
+        }
+        // Quota and transport errors propagate: falling back to a bigger call wouldn't help
+        String output = resumeAnalyzerService.complete(prompt, expectedOutputTokens);
+        try {
+            return objectMapper.readTree(ResumeAnalyzerService.extractJsonBlock(output));
+        } catch (Exception e) {
+            log.warn("Unparseable incremental analysis, running a full one: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static void appendEdits(StringBuilder out, String heading, List<Hunk> hunks) {
+        if (hunks.isEmpty()) {
+            return;
+        }
+        out.append(heading).append('\n');
+        for (Hunk hunk : hunks) {
+            hunk.removed().forEach(line -> out.append("- ").append(line).append('\n'));
+            hunk.added().forEach(line -> out.append("+ ").append(line).append('\n'));
+        }
+        out.append('\n');
+    }
+
+    /**
+     * Non-blank lines, whitespace collapsed and bullet markers dropped. Parsed
+     * text arrives without page furniture; a page marker left in an older
+     * snapshot collapses like any other whitespace.
+     */
+    static List<String> lines(String text) {
+        List<String> lines = new ArrayList<>();
+        for (String line : text.split("\\R")) {
+            String normalized = normalize(line);
+            if (!normalized.isEmpty()) {
+                lines.add(normalized);
+            }
+        }
+        return lines;
+    }
+
+    private static String normalize(String text) {
+        String collapsed = WHITESPACE.matcher(text).replaceAll(" ").strip();
+        return LEADING_BULLET.matcher(collapsed).replaceFirst("");
+    }
+
+    record Hunk(List<String> removed, List<String> added) {
+    }
+
+    /**
+     * Runs of removed/added lines between the lines both sides share (longest
+     * common subsequence over line fingerprints), or null if the inputs are
+     * too long to diff.
+     */
+    static List<Hunk> diff(List<String> before, List<String> after) {
+        int n = before.size();
+        int m = after.size();
+        if ((long) (n + 1) * (m + 1) > MAX_DIFF_CELLS) {
+            return null;
+        }
+        // Compare small ints rather than strings in the quadratic part
+        Map<String, Integer> ids = new HashMap<>();
+        int[] a = new int[n];
+        int[] b = new int[m];
+        for (int i = 0; i < n; i++) {
+            a[i] = ids.computeIfAbsent(before.get(i), k -> ids.size());
+        }
+        for (int j = 0; j < m; j++) {
+            b[j] = ids.computeIfAbsent(after.get(j), k -> ids.size());
+        }
+        int[][] common = new int[n + 1][m + 1];
+        for (int i = n - 1; i >= 0; i--) {
+            for (int j = m - 1; j >= 0; j--) {
+                common[i][j] = a[i] == b[j] ? common[i + 1][j + 1] + 1
+                        : Math.max(common[i + 1][j], common[i][j + 1]);
+            }
+        }
+
+        List<Hunk> hunks = new ArrayList<>();
+        List<String> removed = new ArrayList<>();
+        List<String> added = new ArrayList<>();
+        int i = 0;
+        int j = 0;
+        while (i < n || j < m) {
+            if (i < n && j < m && a[i] == b[j]) {
+                if (!removed.isEmpty() || !added.isEmpty()) {
+                    hunks.add(new Hunk(removed, added));
+                    removed = new ArrayList<>();
+                    added = new ArrayList<>();
+                }
+                i++;
+                j++;
+            } else if (j < m && (i == n || common[i][j + 1] >= common[i + 1][j])) {
+                added.add(after.get(j++));
+            } else {
+                removed.add(before.get(i++));
+            }
+        }
+        if (!removed.isEmpty() || !added.isEmpty()) {
+            hunks.add(new Hunk(removed, added));
+        }
+        return hunks;
+    }
+
+    private static int changedLines(List<Hunk> hunks) {
+        int changed = 0;
+        for (Hunk hunk : hunks) {
+            changed += Math.max(hunk.removed().size(), hunk.added().size());
+        }
+        return changed;
+    }
+
+    /**
+     * A text field of the structured resume; {@code bullet} is set when it is
+     * a bullet's original text ({@code bullets} being the list it sits in).
+     */
+    private record TextField(ObjectNode parent, String name, ObjectNode bullet, ArrayNode bullets) {
+
+        String text() {
+            return normalize(parent.path(name).asText(""));
+        }
+
+        void replace(String before, String after) {
+            String text = text();
+            int at = indexOfWholeWords(text, before, 0);
+            parent.put(name, (text.substring(0, at) + after + text.substring(at + before.length())).strip());
+        }
+    }
+
+    private static void collectFields(JsonNode node, String name, ArrayNode bullets, List<TextField> fields) {
+        if (node.isObject()) {
+            Iterator<Map.Entry<String, JsonNode>> entries = node.fields();
+            while (entries.hasNext()) {
+                Map.Entry<String, JsonNode> entry = entries.next();
+                JsonNode value = entry.getValue();
+                if (value.isTextual()) {
+                    // "improved" is our own output; only what came from the resume can match its lines
+                    if (!entry.getKey().equals("improved")) {
+                        boolean original = bullets != null && entry.getKey().equals("original");
+                        fields.add(new TextField((ObjectNode) node, entry.getKey(),
+                                original ? (ObjectNode) node : null, original ? bullets : null));
+                    }
+                } else {
+                    collectFields(value, entry.getKey(), null, fields);
+                }
+            }
+        } else if (node.isArray()) {
+            boolean bulletList = "bulletPoints".equals(name);
+            for (JsonNode element : node) {
+                collectFields(element, null, bulletList ? (ArrayNode) node : null, fields);
+            }
+        }
+    }
+
+    /**
+     * Where removed text sits in the structured resume: a field, nowhere, or
+     * ambiguous (several fields, or only a fragment too short to place).
+     */
+    private record Located(TextField field, boolean ambiguous) {
+        static final Located NOWHERE = new Located(null, false);
+        static final Located AMBIGUOUS = new Located(null, true);
+    }
+
+    /**
+     * The field whose normalized text is exactly {@code text}, if there is
+     * exactly one. Failing that, text of at least
+     * {@link #MIN_PARTIAL_MATCH_LENGTH} characters may sit as whole words
+     * once inside one field (the extractor sometimes joins lines).
+     */
+    private static Located find(List<TextField> fields, String text) {
+        TextField exact = null;
+        TextField partial = null;
+        int exactCount = 0;
+        int partialCount = 0;
+        for (TextField field : fields) {
+            String fieldText = field.text();
+            if (fieldText.equals(text)) {
+                exact = field;
+                exactCount++;
+            } else {
+                int occurrences = wholeWordOccurrences(fieldText, text);
+                if (occurrences > 0) {
+                    partial = field;
+                    partialCount += occurrences;
+                }
+            }
+        }
+        if (exactCount == 1) {
+            return new Located(exact, false);
+        }
+        if (exactCount > 1) {
+            return Located.AMBIGUOUS;
+        }
+        if (partialCount == 0) {
+            return Located.NOWHERE;
+        }
+        return partialCount == 1 && text.length() >= MIN_PARTIAL_MATCH_LENGTH
+                ? new Located(partial, false)
+                : Located.AMBIGUOUS;
+    }
+
+    /**
+     * Whether a suggestion's text was replaced: equal once normalized, or one
+     * holding the other as whole words when the shorter is long enough to be
+     * specific.
+     */
+    private static boolean overlapsAny(String text, List<String> replaced) {
+        if (text == null) {
+            return false;
+        }
+        String normalized = normalize(text);
+        if (normalized.isEmpty()) {
+            return false;
+        }
+        for (String before : replaced) {
+            if (normalized.equals(before)) {
+                return true;
+            }
+            String shorter = normalized.length() < before.length() ? normalized : before;
+            String longer = shorter == normalized ? before : normalized;
+            if (shorter.length() >= MIN_PARTIAL_MATCH_LENGTH && wholeWordOccurrences(longer, shorter) > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int wholeWordOccurrences(String text, String part) {
+        int count = 0;
+        for (int at = indexOfWholeWords(text, part, 0); at >= 0; at = indexOfWholeWords(text, part, at + 1)) {
+            count++;
+        }
+        return count;
+    }
+
+    /** Next index of {@code part} in {@code text} that does not cut a word in two, or -1. */
+    private static int indexOfWholeWords(String text, String part, int from) {
+        if (part.isEmpty()) {
+            return -1;
+        }
+        for (int at = text.indexOf(part, from); at >= 0; at = text.indexOf(part, at + 1)) {
+            int end = at + part.length();
+            boolean startsWord = at == 0 || !Character.isLetterOrDigit(text.charAt(at - 1))
+                    || !Character.isLetterOrDigit(part.charAt(0));
+            boolean endsWord = end == text.length() || !Character.isLetterOrDigit(text.charAt(end))
+                    || !Character.isLetterOrDigit(part.charAt(part.length() - 1));
+            if (startsWord && endsWord) {
+                return at;
+            }
+        }
+        return -1;
+    }
+
+    private static void removeByIdentity(ArrayNode array, JsonNode element) {
+        for (int i = 0; i < array.size(); i++) {
+            if (array.get(i) == element) {
+                array.remove(i);
+                return;
+            }
+        }
+    }
+}
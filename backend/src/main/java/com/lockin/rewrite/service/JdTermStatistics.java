@@ -0,0 +1,174 @@
+package com.lockin.rewrite.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.lockin.rewrite.cache.AnalysisCacheKeys;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Document frequencies of keywords across the job descriptions we have
+ * processed, for IDF weighting in local scoring.
+ *
+ * Observations are counted in memory (each distinct JD once) and flushed to a
+ * Redis hash on a fixed delay, which also pulls in what other nodes have
+ * learned. Without Redis the statistics stay node-local. The number of
+ * distinct terms tracked is capped; untracked terms simply look rare.
+ */
+@Service
+public class JdTermStatistics {
+
+    private static final Logger log = LoggerFactory.getLogger(JdTermStatistics.class);
+
+    private static final String DF_KEY = "jd-stats:df";
+    private static final String DOCS_KEY = "jd-stats:docs";
+
+    private final StringRedisTemplate redisTemplate;
+    private final int maxTerms;
+    private final Cache<String, Boolean> seen;
+
+    // Observers take the read lock, the flush swaps the pending batch under the write lock;
+    // lock-free readers of the counts still need to see the swap
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile ConcurrentHashMap<String, LongAdder> pendingDf = new ConcurrentHashMap<>();
+    private volatile LongAdder pendingDocs = new LongAdder();
+
+    private volatile Map<String, Long> baseDf = Map.of();
+    private volatile long baseDocs;
+
+    public JdTermStatistics(StringRedisTemplate redisTemplate,
+            @Value("${scoring.idf.max-terms:50000}") int maxTerms,
+            @Value("${scoring.idf.seen-max-entries:100000}") long seenMaxEntries) {
+        this.redisTemplate = redisTemplate;
+        this.maxTerms = maxTerms;
+        this.seen = Caffeine.newBuilder().maximumSize(seenMaxEntries).build();
+        try {
+            refresh();
+        } catch (DataAccessException e) {
+            log.warn("Could not load JD term statistics from Redis, starting empty: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Counts one job description containing {@code terms}. Repeats of a JD
+     * already seen by this node are ignored.
+     */
+    public void observe(String jobDescription, Collection<String> terms) {
+        if (seen.asMap().putIfAbsent(AnalysisCacheKeys.digest(jobDescription), Boolean.TRUE) != null) {
+            return;
+        }
+        Map<String, Long> base = baseDf;
+        lock.readLock().lock();
+        try {
+            pendingDocs.increment();
+            for (String term : terms) {
+                LongAdder count = pendingDf.get(term);
+                if (count == null) {
+                    if (!base.containsKey(term) && base.size() + pendingDf.size() >= maxTerms) {
+                        continue;
+                    }
+                    count = pendingDf.computeIfAbsent(term, k -> new LongAdder());
+                }
+                count.increment();
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long getDocumentCount() {
+        return baseDocs + pendingDocs.sum();
+    }
+
+    public long getDocumentFrequency(String term) {
+        LongAdder pending = pendingDf.get(term);
+        return baseDf.getOrDefault(term, 0L) + (pending != null ? pending.sum() : 0L);
+    }
+
+    public int getTermCount() {
+        return baseDf.size() + pendingDf.size();
+    }
+
+    /**
+     * BM25 (Robertson-Sparck Jones) IDF, floored at zero by the +1: rare terms
+     * weigh most, a term in every JD still counts a little.
+     */
+    public double idf(String term) {
+        long documents = getDocumentCount();
+        long df = Math.min(getDocumentFrequency(term), documents);
+        return Math.log(1 + (documents - df + 0.5) / (df + 0.5));
+    }
+
+    @Scheduled(fixedDelayString = "${scoring.idf.flush-interval-ms:60000}")
+    public void flush() {
+        ConcurrentHashMap<String, LongAdder> drainedDf;
+        long drainedDocs;
+        lock.writeLock().lock();
+        try {
+            drainedDf = pendingDf;
+            drainedDocs = pendingDocs.sum();
+            pendingDf = new ConcurrentHashMap<>();
+            pendingDocs = new LongAdder();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        if (drainedDocs > 0) {
+            try {
+                redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                    StringRedisConnection redis = (StringRedisConnection) connection;
+                    redis.incrBy(DOCS_KEY, drainedDocs);
+                    drainedDf.forEach((term, count) -> redis.hIncrBy(DF_KEY, term, count.sum()));
+                    return null;
+                });
+            } catch (DataAccessException e) {
+                // The increments did not go through; keep the batch for the next attempt
+                requeue(drainedDf, drainedDocs);
+                return;
+            }
+        }
+
+        try {
+            refresh();
+        } catch (DataAccessException e) {
+            // The batch is already in Redis; re-queueing it would count it twice
+            log.warn("Could not refresh JD term statistics from Redis: {}", e.getMessage());
+        }
+    }
+
+    private void requeue(Map<String, LongAdder> drainedDf, long drainedDocs) {
+        lock.readLock().lock();
+        try {
+            pendingDocs.add(drainedDocs);
+            drainedDf.forEach((term, count) ->
+                    pendingDf.computeIfAbsent(term, k -> new LongAdder()).add(count.sum()));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void refresh() {
+        Map<Object, Object> entries = redisTemplate.opsForHash().entries(DF_KEY);
+        String docs = redisTemplate.opsForValue().get(DOCS_KEY);
+
+        Map<String, Long> df = new HashMap<>(entries.size() * 2);
+        entries.forEach((term, count) -> df.put((String) term, Long.parseLong((String) count)));
+        baseDf = df;
+        baseDocs = docs != null ? Long.parseLong(docs) : 0L;
+    }
+}
@@ -2,13 +2,20 @@ package com.lockin.rewrite.service;
 
 import org.springframework.stereotype.Service;
 
+import com.lockin.rewrite.model.KeywordMatch;
+
 import java.util.*;
-import java.util.stream.Collectors;
 
 @Service
 public class KeywordService {
 
-    private static final Set<String> STOPWORDS = new HashSet<>(Arrays.asList(
+    private final SkillDictionaryService skillDictionaryService;
+
+    public KeywordService(SkillDictionaryService skillDictionaryService) {
+        this.skillDictionaryService = skillDictionaryService;
+    }
+
+    static final TermTable STOPWORDS = TermTable.of(
             "a", "an", "the", "and", "or", "but", "if", "then", "else", "when",
             "at", "by", "for", "from", "in", "into", "of", "off", "on", "onto",
             "out", "over", "to", "up", "with", "about", "against", "between",
@@ -51,30 +58,16 @@ public class KeywordService {
             "debugging", "troubleshooting", "resolution", "collaboration",
             "meeting", "stakeholder", "requirement", "specification", "user",
             "story", "case", "scenario", "diagram", "flowchart", "wireframe",
-            "mockup", "prototype"));
+            "mockup", "prototype");
 
     public List<String> extractKeywords(String text) {
         if (text == null || text.isEmpty()) {
             return Collections.emptyList();
         }
 
-        // 1. Normalize: lowercase, remove special chars (keep only alphanumeric and
-        // spaces)
-        String normalized = text.toLowerCase()
-                .replaceAll("[^a-z0-9\\s]", " ")
-                .replaceAll("\\s+", " ") // merge multiple spaces
-                .trim();
-
-        // 2. Tokenize
-        String[] tokens = normalized.split(" ");
-
-        // 3. Filter stopwords and short words
-        return Arrays.stream(tokens)
-                .filter(token -> token.length() > 2) // Filter very short words
-                .filter(token -> !STOPWORDS.contains(token))
-                .distinct()
-                .sorted()
-                .collect(Collectors.toList());
+        List<String> keywords = new ArrayList<>(collectKeywords(text).values());
+        Collections.sort(keywords);
+        return keywords;
     }
 
     public double calculateMatchScore(List<String> resumeKeywords, List<String> jdKeywords) {
@@ -82,26 +75,286 @@ public class KeywordService {
             return 0.0;
         }
 
-        long matchCount = jdKeywords.stream()
-                .filter(resumeKeywords::contains)
-                .count();
+        Set<String> resume = new HashSet<>(resumeKeywords);
+        long matchCount = 0;
+        for (String keyword : jdKeywords) {
+            if (resume.contains(keyword)) {
+                matchCount++;
+            }
+        }
+        return score(matchCount, jdKeywords.size());
+    }
+
+    public List<String> findMissingKeywords(List<String> resumeKeywords, List<String> jdKeywords) {
+        if (jdKeywords == null || jdKeywords.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        // Return all JD keywords that are NOT in resume keywords
+        Set<String> resume = new HashSet<>(resumeKeywords);
+        List<String> missing = new ArrayList<>();
+        for (String keyword : jdKeywords) {
+            if (!resume.contains(keyword)) {
+                missing.add(keyword);
+            }
+        }
+        Collections.sort(missing);
+        return missing;
+    }
 
+    /**
+     * Tokenizes both texts once and returns the score, matched and missing JD
+     * keywords together. Equivalent to {@link #extractKeywords} on each text
+     * followed by {@link #calculateMatchScore} and {@link #findMissingKeywords}.
+     */
+    public KeywordMatch match(String resumeText, String jobDescription) {
+        if (jobDescription == null || jobDescription.isEmpty()) {
+            return new KeywordMatch(0.0, Collections.emptyList(), Collections.emptyList(), Collections.emptyList());
+        }
+
+        TermTable resume = resumeText == null ? new TermTable(16) : collectKeywords(resumeText);
+        List<String> jdKeywords = new ArrayList<>(collectKeywords(jobDescription).values());
+        Collections.sort(jdKeywords);
+
+        List<String> matched = new ArrayList<>();
+        List<String> missing = new ArrayList<>();
+        for (String keyword : jdKeywords) {
+            if (resume.contains(keyword, 0, keyword.length())) {
+                matched.add(keyword);
+            } else {
+                missing.add(keyword);
+            }
+        }
+        return new KeywordMatch(score(matched.size(), jdKeywords.size()), jdKeywords, matched, missing);
+    }
+
+    private static double score(long matchCount, int total) {
+        if (total == 0) {
+            return 0.0;
+        }
         // Calculate percentage: (matches / total_jd_keywords) * 100
-        double score = (double) matchCount / jdKeywords.size() * 100.0;
+        double score = (double) matchCount / total * 100.0;
 
         // ensure exactly 2 decimal places
         return Math.round(score * 100.0) / 100.0;
     }
 
-    public List<String> findMissingKeywords(List<String> resumeKeywords, List<String> jdKeywords) {
-        if (jdKeywords == null || jdKeywords.isEmpty()) {
-            return Collections.emptyList();
+    /**
+     * Visits every keyword occurrence in {@code text} in text order, with the
+     * same tokenization as {@link #extractKeywords}: dictionary skills by
+     * canonical name, other tokens lower-cased. Used where term frequencies
+     * and positions matter, not just the distinct set.
+     */
+    public void forEachKeyword(String text, KeywordVisitor visitor) {
+        if (text == null || text.isEmpty()) {
+            return;
         }
+        scanKeywords(text, (source, start, end, offset, skill) -> {
+            String keyword = skill ? source.toString() : fold(source, start, end);
+            visitor.visit(keyword, offset, skill);
+        });
+    }
 
-        // Return all JD keywords that are NOT in resume keywords
-        return jdKeywords.stream()
-                .filter(keyword -> !resumeKeywords.contains(keyword))
-                .sorted()
-                .collect(Collectors.toList());
+    @FunctionalInterface
+    public interface KeywordVisitor {
+        /**
+         * @param offset where the occurrence starts in the scanned text
+         * @param skill  whether it is a dictionary skill (vs. a plain token)
+         */
+        void visit(String keyword, int offset, boolean skill);
+    }
+
+    private TermTable collectKeywords(String text) {
+        TermTable keywords = new TermTable(Math.max(16, text.length() / 16));
+        scanKeywords(text, (source, start, end, offset, skill) -> keywords.add(source, start, end));
+        return keywords;
+    }
+
+    /**
+     * Dictionary skills (one Aho-Corasick pass, reported by canonical name, so
+     * "k8s" and "Kubernetes" are the same keyword and "spring boot" or "c++"
+     * survive intact) merged in text order with a single pass over the rest of
+     * {@code text}: runs of ASCII letters/digits are tokens, everything else
+     * separates them, and tokens inside a skill match are skipped. Tokens of
+     * three or more characters that are not stopwords are reported as a range
+     * of {@code text}, so callers that fold case on the fly (TermTable) only
+     * allocate a String the first time a keyword is seen.
+     */
+    private void scanKeywords(String text, RangeVisitor visitor) {
+        List<SkillMatcher.Match> skills = skillDictionaryService.scan(text);
+        int length = text.length();
+        int nextSkill = 0;
+        int i = 0;
+        while (i < length) {
+            while (i < length && !isTokenChar(text.charAt(i))) {
+                i++;
+            }
+            int start = i;
+            while (i < length && isTokenChar(text.charAt(i))) {
+                // U+0130 lower-cases to "i" plus a combining dot, which ends the token
+                if (text.charAt(i++) == '\u0130') {
+                    break;
+                }
+            }
+            if (start == i) {
+                break;
+            }
+            // Skill matches sit on word boundaries, so a token is either wholly inside one or outside all
+            while (nextSkill < skills.size() && skills.get(nextSkill).end() <= start) {
+                SkillMatcher.Match skill = skills.get(nextSkill++);
+                visitor.visit(skill.skill(), 0, skill.skill().length(), skill.start(), true);
+            }
+            if (nextSkill < skills.size() && skills.get(nextSkill).start() <= start) {
+                continue;
+            }
+            if (i - start > 2 && !STOPWORDS.contains(text, start, i)) {
+                visitor.visit(text, start, i, start, false);
+            }
+        }
+        while (nextSkill < skills.size()) {
+            SkillMatcher.Match skill = skills.get(nextSkill++);
+            visitor.visit(skill.skill(), 0, skill.skill().length(), skill.start(), true);
+        }
+    }
+
+    @FunctionalInterface
+    private interface RangeVisitor {
+        void visit(CharSequence source, int start, int end, int offset, boolean skill);
+    }
+
+    /**
+     * ASCII letters and digits, plus the two non-ASCII characters whose
+     * lower case is an ASCII letter (KELVIN SIGN and I WITH DOT ABOVE), so
+     * tokens match what {@code toLowerCase()} followed by stripping non
+     * {@code [a-z0-9]} would produce.
+     */
+    private static boolean isTokenChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || (c >= 'A' && c <= 'Z')
+                || c == '\u212A' || c == '\u0130';
+    }
+
+    private static String fold(CharSequence text, int start, int end) {
+        char[] folded = new char[end - start];
+        for (int i = start; i < end; i++) {
+            folded[i - start] = fold(text.charAt(i));
+        }
+        return new String(folded);
+    }
+
+    private static char fold(char c) {
+        if (c >= 'A' && c <= 'Z') {
+            return (char) (c + ('a' - 'A'));
+        }
+        if (c < 0x80) {
+            return c;
+        }
+        return switch (c) {
+            case '\u212A' -> 'k';
+            case '\u0130' -> 'i';
+            default -> c;
+        };
+    }
+
+    /**
+     * Open-addressing (linear probing) set of lower-case terms that can be
+     * probed with a character range of a larger string, folding ASCII case as
+     * it goes, so lookups never build a substring.
+     */
+    static final class TermTable {
+        private String[] slots;
+        private int[] hashes;
+        private int size;
+
+        TermTable(int expected) {
+            int capacity = Integer.highestOneBit(Math.max(4, expected * 2) - 1) << 1;
+            this.slots = new String[capacity];
+            this.hashes = new int[capacity];
+        }
+
+        static TermTable of(String... terms) {
+            TermTable table = new TermTable(terms.length);
+            for (String term : terms) {
+                table.add(term, 0, term.length());
+            }
+            return table;
+        }
+
+        boolean contains(CharSequence text, int start, int end) {
+            int hash = hash(text, start, end);
+            int mask = slots.length - 1;
+            for (int slot = hash & mask; slots[slot] != null; slot = (slot + 1) & mask) {
+                if (hashes[slot] == hash && regionMatches(slots[slot], text, start, end)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void add(CharSequence text, int start, int end) {
+            int hash = hash(text, start, end);
+            int mask = slots.length - 1;
+            int slot = hash & mask;
+            for (; slots[slot] != null; slot = (slot + 1) & mask) {
+                if (hashes[slot] == hash && regionMatches(slots[slot], text, start, end)) {
+                    return;
+                }
+            }
+            slots[slot] = fold(text, start, end);
+            hashes[slot] = hash;
+            if (++size * 2 > slots.length) {
+                resize();
+            }
+        }
+
+        /** The terms in table order (not sorted). */
+        List<String> values() {
+            List<String> values = new ArrayList<>(size);
+            for (String slot : slots) {
+                if (slot != null) {
+                    values.add(slot);
+                }
+            }
+            return values;
+        }
+
+        private void resize() {
+            String[] oldSlots = slots;
+            int[] oldHashes = hashes;
+            slots = new String[oldSlots.length * 2];
+            hashes = new int[oldSlots.length * 2];
+            int mask = slots.length - 1;
+            for (int i = 0; i < oldSlots.length; i++) {
+                if (oldSlots[i] != null) {
+                    int slot = oldHashes[i] & mask;
+                    while (slots[slot] != null) {
+                        slot = (slot + 1) & mask;
+                    }
+                    slots[slot] = oldSlots[i];
+                    hashes[slot] = oldHashes[i];
+                }
+            }
+        }
+
+        private static int hash(CharSequence text, int start, int end) {
+            // FNV-1a over case-folded chars, then spread for the power-of-two mask
+            int hash = 0x811c9dc5;
+            for (int i = start; i < end; i++) {
+                hash ^= fold(text.charAt(i));
+                hash *= 0x01000193;
+            }
+            return hash ^ (hash >>> 16);
+        }
+
+        private static boolean regionMatches(String term, CharSequence text, int start, int end) {
+            if (term.length() != end - start) {
+                return false;
+            }
+            for (int i = start; i < end; i++) {
+                if (term.charAt(i - start) != fold(text.charAt(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
     }
 }
@@ -1,58 +1,128 @@
 package com.lockin.rewrite.service;
 
+import com.lockin.rewrite.cache.AnalysisCacheKeys;
+import com.lockin.rewrite.cache.PdfRenderCache;
 import com.lockin.rewrite.model.resume.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.io.*;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 @Service
 public class LatexService {
 
+    private static final Logger log = LoggerFactory.getLogger(LatexService.class);
+
+    static final String PREAMBLE = buildPreamble();
+
+    private static final String GENERATED_PREFIX = "generated/";
+
+    private final TectonicWorkerPool tectonicWorkerPool;
+    private final PdfRenderCache pdfRenderCache;
+    private final S3Service s3Service;
+    private final long urlExpiresInSeconds;
+
+    public LatexService(TectonicWorkerPool tectonicWorkerPool, PdfRenderCache pdfRenderCache, S3Service s3Service,
+            @Value("${render.url.expires-in-seconds:900}") long urlExpiresInSeconds) {
+        this.tectonicWorkerPool = tectonicWorkerPool;
+        this.pdfRenderCache = pdfRenderCache;
+        this.s3Service = s3Service;
+        this.urlExpiresInSeconds = urlExpiresInSeconds;
+    }
+
     public byte[] generatePdf(ResumeData data) throws IOException, InterruptedException {
-        // 1. Generate LaTeX String
-        String latexContent = buildLatex(data);
-
-        // 2. Write to temp file
-        File tempDir = Files.createTempDirectory("resume_gen").toFile();
-        File texFile = new File(tempDir, "resume.tex");
-        try (PrintWriter out = new PrintWriter(texFile)) {
-            out.println(latexContent);
-        }
+        // Only the body varies; the preamble is already in every warm worker directory
+        String body = buildBody(data);
 
-        // 3. Compile with Tectonic
-        ProcessBuilder pb = new ProcessBuilder("tectonic", "resume.tex");
-        pb.directory(tempDir);
-        pb.redirectErrorStream(true);
-        Process process = pb.start();
-
-        // Capture output for debugging
-        BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
-        String line;
-        while ((line = reader.readLine()) != null) {
-            System.out.println("[Tectonic] " + line);
+        // Same LaTeX, same PDF: toggling a bullet back and forth never recompiles
+        String key = renderKey(body);
+        byte[] cached = pdfRenderCache.get(key);
+        if (cached != null) {
+            return cached;
         }
+        byte[] pdf = tectonicWorkerPool.compile(body);
+        pdfRenderCache.put(key, pdf);
+        return pdf;
+    }
+
+    /**
+     * Renders to S3 instead of to the caller: the PDF is stored once under
+     * {@code generated/<render key>.pdf} and a presigned download URL is
+     * returned, so the bytes never pass through the heap. An object that is
+     * already there (same document) is reused without compiling; otherwise
+     * the upload streams from the render cache's disk copy. A fresh render is
+     * only copied into the disk tier while it holds the worker, and uploaded
+     * after the worker is back in the pool, so S3 latency never costs render
+     * capacity.
+     */
+    public String generatePdfUrl(ResumeData data) throws IOException, InterruptedException {
+        String body = buildBody(data);
+        String key = renderKey(body);
+        String objectKey = GENERATED_PREFIX + key + ".pdf";
 
-        boolean finished = process.waitFor(60, TimeUnit.SECONDS);
-        if (!finished || process.exitValue() != 0) {
-            throw new RuntimeException("Latex compilation failed");
+        if (!s3Service.exists(objectKey) && !uploadCached(objectKey, pdfRenderCache.getFile(key))) {
+            // Upload from a copy this request owns; the cache entry can be trimmed
+            // from disk before the upload gets to read it
+            Path stored = tectonicWorkerPool.compile(body, pdf -> {
+                pdfRenderCache.putFile(key, pdf);
+                return copyToTemp(pdf);
+            });
+            try {
+                s3Service.uploadFile(objectKey, stored, "application/pdf");
+            } finally {
+                Files.deleteIfExists(stored);
+            }
         }
+        return s3Service.generatePresignedDownloadUrl(objectKey, urlExpiresInSeconds);
+    }
+
+    private static Path copyToTemp(Path pdf) throws IOException {
+        Path tmp = Files.createTempFile("render-", ".pdf");
+        Files.copy(pdf, tmp, StandardCopyOption.REPLACE_EXISTING);
+        return tmp;
+    }
+
+    public long getUrlExpiresInSeconds() {
+        return urlExpiresInSeconds;
+    }
 
-        // 4. Read PDF
-        File pdfFile = new File(tempDir, "resume.pdf");
-        if (!pdfFile.exists()) {
-            throw new RuntimeException("PDF file not generated");
+    private boolean uploadCached(String objectKey, Path cached) {
+        if (cached == null) {
+            return false;
         }
-        return Files.readAllBytes(pdfFile.toPath());
+        try {
+            s3Service.uploadFile(objectKey, cached, "application/pdf");
+            return true;
+        } catch (UncheckedIOException e) {
+            // Trimmed from the disk tier meanwhile; render it again
+            return false;
+        }
+    }
+
+    /**
+     * Canonical key of a render: a digest of the exact document this service
+     * emits, so only differences that change the PDF change the key (e.g. an
+     * unaccepted suggestion's text does not), and template edits invalidate
+     * everything.
+     */
+    static String renderKey(String body) {
+        return AnalysisCacheKeys.digest(PREAMBLE, body);
     }
 
-    private String buildLatex(ResumeData data) {
-        // Use the raw template structure and inject data
-        // For simplicity in this first pass, we construct the document using the
-        // structure from the provided template
+    /** The complete document: constant preamble followed by the body. */
+    String buildLatex(ResumeData data) {
+        return PREAMBLE + buildBody(data);
+    }
+
+    private static String buildPreamble() {
+        // Use the raw template structure; nothing here depends on the resume
 
         StringBuilder sb = new StringBuilder();
         // Header (Imports & Config)
@@ -97,6 +167,12 @@ public class LatexService {
         sb.append("\\newcommand{\\resumeSubHeadingListEnd}{\\end{itemize}}\n");
         sb.append("\\newcommand{\\resumeItemListStart}{\\begin{itemize}}\n");
         sb.append("\\newcommand{\\resumeItemListEnd}{\\end{itemize}\\vspace{-5pt}}\n");
+        return sb.toString();
+    }
+
+    private String buildBody(ResumeData data) {
+        // Inject data into the structure from the provided template
+        StringBuilder sb = new StringBuilder();
         sb.append("\\begin{document}\n");
 
         // Personal Info
@@ -195,7 +271,7 @@ public class LatexService {
             for (int i = 0; i < data.getProjects().size(); i++) {
                 ResumeData.Project proj = data.getProjects().get(i);
 
-                System.out.println("Processing Project: " + proj.getTitle() + ", Date: " + proj.getDate());
+                log.trace("Processing project: {}, date: {}", proj.getTitle(), proj.getDate());
 
                 // If we have detailed info (summary or location), use the Subheading format
                 boolean hasExtraInfo = (proj.getSummary() != null && !proj.getSummary().isEmpty()) ||
@@ -235,7 +311,7 @@ public class LatexService {
         return sb.toString();
     }
 
-    private String escape(String input) {
+    String escape(String input) {
         if (input == null)
             return "";
         return input.replace("&", "\\&")
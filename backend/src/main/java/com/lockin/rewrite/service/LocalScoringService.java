@@ -0,0 +1,226 @@
+package com.lockin.rewrite.service;
+
+import com.lockin.rewrite.model.Analysis;
+import com.lockin.rewrite.model.AnalysisResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Deterministic resume/JD scoring without the LLM ("fast" mode).
+ *
+ * JD keywords are the query, the resume is the document. Each JD term is
+ * weighted by its IDF over the JDs we have seen ({@link JdTermStatistics}),
+ * by how often the JD repeats it, and up if it is a dictionary skill. Resume
+ * term frequencies are boosted by the section they appear in and saturated
+ * BM25-style against resume length, so one mention in a normal-length resume
+ * earns a term full credit and keyword stuffing earns nothing extra. The
+ * score is the weighted share of credit, 0-100.
+ */
+@Service
+public class LocalScoringService {
+
+    enum Section {
+        SUMMARY(1.0), SKILLS(1.5), EXPERIENCE(1.3), PROJECTS(1.2), EDUCATION(0.8), OTHER(1.0);
+
+        private final double boost;
+
+        Section(double boost) {
+            this.boost = boost;
+        }
+    }
+
+    private static final Map<String, Section> HEADER_NOUNS = Map.ofEntries(
+            Map.entry("skills", Section.SKILLS), Map.entry("technologies", Section.SKILLS),
+            Map.entry("stack", Section.SKILLS), Map.entry("competencies", Section.SKILLS),
+            Map.entry("experience", Section.EXPERIENCE), Map.entry("employment", Section.EXPERIENCE),
+            Map.entry("history", Section.EXPERIENCE),
+            Map.entry("projects", Section.PROJECTS),
+            Map.entry("education", Section.EDUCATION), Map.entry("coursework", Section.EDUCATION),
+            Map.entry("summary", Section.SUMMARY), Map.entry("profile", Section.SUMMARY),
+            Map.entry("objective", Section.SUMMARY), Map.entry("about", Section.SUMMARY),
+            Map.entry("certifications", Section.OTHER), Map.entry("awards", Section.OTHER),
+            Map.entry("publications", Section.OTHER), Map.entry("interests", Section.OTHER),
+            Map.entry("activities", Section.OTHER), Map.entry("achievements", Section.OTHER));
+
+    private static final double SKILL_WEIGHT = 1.5;
+    private static final int MAX_STRENGTHS = 5;
+    private static final int MAX_HEADER_LENGTH = 40;
+    // Until enough resumes have been seen, assume a typical length
+    private static final int MIN_LENGTH_SAMPLES = 20;
+
+    private final KeywordService keywordService;
+    private final JdTermStatistics jdTermStatistics;
+    private final double k1;
+    private final double b;
+    private final double defaultAverageLength;
+    private final LongAdder lengthSum = new LongAdder();
+    private final LongAdder lengthSamples = new LongAdder();
+
+    public LocalScoringService(KeywordService keywordService, JdTermStatistics jdTermStatistics,
+            @Value("${scoring.bm25.k1:1.2}") double k1,
+            @Value("${scoring.bm25.b:0.75}") double b,
+            @Value("${scoring.bm25.default-average-length:250}") double defaultAverageLength) {
+        this.keywordService = keywordService;
+        this.jdTermStatistics = jdTermStatistics;
+        this.k1 = k1;
+        this.b = b;
+        this.defaultAverageLength = defaultAverageLength;
+    }
+
+    /**
+     * Scores {@code resumeText} against {@code jobDescription} and returns a
+     * response with a populated {@link Analysis} (no suggestions, no
+     * structured resume data) and mode "fast".
+     */
+    public AnalysisResponse score(String resumeText, String jobDescription) {
+        Map<String, Query> query = learn(jobDescription);
+
+        Map<String, Double> termFrequencies = new HashMap<>();
+        int[] length = new int[1];
+        List<SectionStart> sections = detectSections(resumeText);
+        keywordService.forEachKeyword(resumeText, new KeywordService.KeywordVisitor() {
+            private int section;
+
+            @Override
+            public void visit(String keyword, int offset, boolean skill) {
+                while (section + 1 < sections.size() && sections.get(section + 1).offset <= offset) {
+                    section++;
+                }
+                termFrequencies.merge(keyword, sections.get(section).section.boost, Double::sum);
+                length[0]++;
+            }
+        });
+        lengthSum.add(length[0]);
+        lengthSamples.increment();
+
+        double lengthNorm = k1 * (1 - b + b * length[0] / averageLength());
+        double total = 0;
+        double earned = 0;
+        Map<String, Double> contributions = new LinkedHashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (Map.Entry<String, Query> entry : query.entrySet()) {
+            Query term = entry.getValue();
+            double weight = term.weight * jdTermStatistics.idf(entry.getKey()) * (1 + Math.log(term.frequency));
+            total += weight;
+
+            double tf = termFrequencies.getOrDefault(entry.getKey(), 0.0);
+            if (tf == 0) {
+                missing.add(entry.getKey());
+                continue;
+            }
+            // 1.0 for one plain mention in an average-length resume
+            double saturated = tf * (k1 + 1) / (tf + lengthNorm);
+            double credit = weight * Math.min(1.0, saturated);
+            earned += credit;
+            contributions.put(entry.getKey(), credit);
+        }
+
+        double score = total == 0 ? 0.0 : Math.round(earned / total * 100.0 * 100.0) / 100.0;
+
+        List<String> jdKeywords = new ArrayList<>(query.keySet());
+        Collections.sort(jdKeywords);
+        List<String> matched = new ArrayList<>(contributions.keySet());
+        Collections.sort(matched);
+        // Most important gaps first
+        missing.sort(Comparator.comparingDouble((String term) -> -query.get(term).weight
+                * jdTermStatistics.idf(term)).thenComparing(Comparator.naturalOrder()));
+        List<String> strengths = contributions.entrySet().stream()
+                .sorted(Map.Entry.<String, Double>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .limit(MAX_STRENGTHS)
+                .map(Map.Entry::getKey)
+                .toList();
+
+        Analysis analysis = new Analysis(score, new ArrayList<>(strengths), missing);
+        analysis.setMatchKeywords(matched);
+        analysis.setJdKeywords(jdKeywords);
+
+        AnalysisResponse response = new AnalysisResponse(resumeText, analysis, new ArrayList<>(), score);
+        response.setMode("fast");
+        return response;
+    }
+
+    /**
+     * Feeds a job description into the IDF statistics without scoring, so
+     * full (LLM) analyses also teach the fast path.
+     */
+    public void observe(String jobDescription) {
+        learn(jobDescription);
+    }
+
+    private Map<String, Query> learn(String jobDescription) {
+        Map<String, Query> query = new HashMap<>();
+        keywordService.forEachKeyword(jobDescription, (keyword, offset, skill) -> {
+            Query term = query.computeIfAbsent(keyword, k -> new Query(skill ? SKILL_WEIGHT : 1.0));
+            term.frequency++;
+        });
+        jdTermStatistics.observe(jobDescription, query.keySet());
+        return query;
+    }
+
+    private double averageLength() {
+        long samples = lengthSamples.sum();
+        return samples < MIN_LENGTH_SAMPLES ? defaultAverageLength
+                : Math.max(1.0, (double) lengthSum.sum() / samples);
+    }
+
+    /**
+     * Splits the resume at short lines that look like section headers
+     * ("Technical Skills", "WORK EXPERIENCE:"). Text before the first header
+     * (name, contact, summary) counts as the summary.
+     */
+    static List<SectionStart> detectSections(String text) {
+        List<SectionStart> sections = new ArrayList<>();
+        sections.add(new SectionStart(0, Section.SUMMARY));
+        if (text == null) {
+            return sections;
+        }
+        int lineStart = 0;
+        while (lineStart < text.length()) {
+            int lineEnd = text.indexOf('\n', lineStart);
+            if (lineEnd < 0) {
+                lineEnd = text.length();
+            }
+            String line = text.substring(lineStart, lineEnd).strip();
+            if (!line.isEmpty() && line.length() <= MAX_HEADER_LENGTH) {
+                Section section = headerSection(line);
+                if (section != null) {
+                    sections.add(new SectionStart(lineStart, section));
+                }
+            }
+            lineStart = lineEnd + 1;
+        }
+        return sections;
+    }
+
+    private static Section headerSection(String line) {
+        String header = line.endsWith(":") ? line.substring(0, line.length() - 1).strip() : line;
+        String[] words = header.toLowerCase(Locale.ROOT).split("\\s+");
+        if (words.length > 4) {
+            return null;
+        }
+        // Headers end in their noun ("Technical Skills", "Work Experience"); bullets rarely do
+        return HEADER_NOUNS.get(words[words.length - 1]);
+    }
+
+    record SectionStart(int offset, Section section) {
+    }
+
+    private static final class Query {
+        private final double weight;
+        private int frequency;
+
+        private Query(double weight) {
+            this.weight = weight;
+        }
+    }
+}
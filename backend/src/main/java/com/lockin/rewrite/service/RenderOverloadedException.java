@@ -0,0 +1,20 @@
+package com.lockin.rewrite.service;
+
+/**
+ * Thrown when a PDF render cannot get a Tectonic worker: the wait queue is
+ * full or the queue deadline passed. Callers should surface it as 429 with
+ * the suggested retry delay.
+ */
+public class RenderOverloadedException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public RenderOverloadedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
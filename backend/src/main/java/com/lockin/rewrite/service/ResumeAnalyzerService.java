@@ -3,39 +3,73 @@ package com.lockin.rewrite.service;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lockin.rewrite.cache.AnalysisCacheKeys;
+import com.lockin.rewrite.model.Analysis;
 import com.lockin.rewrite.model.AnalysisResponse;
+import com.lockin.rewrite.model.Suggestion;
+import com.lockin.rewrite.model.resume.ResumeData;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
+import java.net.URI;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 @Service
 public class ResumeAnalyzerService {
 
-  @Value("${gemini.api.key}")
-  private String apiKey;
+  private static final Logger log = LoggerFactory.getLogger(ResumeAnalyzerService.class);
 
   @Value("${gemini.api.url}")
   private String apiUrl;
 
-  private final RestTemplate restTemplate;
-  private final ObjectMapper objectMapper;
+  @Value("${gemini.api.stream-url}")
+  private String streamUrl;
+
+  @Value("${gemini.limits.max-retries:3}")
+  private int maxRetries;
+
+  @Value("${gemini.limits.expected-output-tokens:4000}")
+  private int expectedOutputTokens;
+
+  private static final Pattern RETRY_DELAY = Pattern.compile("\"retryDelay\"\\s*:\\s*\"(\\d+(?:\\.\\d+)?)s\"");
 
-  public ResumeAnalyzerService() {
-    this.restTemplate = new RestTemplate();
+  private final GeminiTransport geminiTransport;
+  private final ObjectMapper objectMapper;
+  private final CacheManager cacheManager;
+  private final GeminiRateLimiter rateLimiter;
+  private final AnalysisPromptBuilder promptBuilder;
+  private final ObservationRegistry observationRegistry;
+
+  public ResumeAnalyzerService(CacheManager cacheManager, GeminiRateLimiter rateLimiter,
+      GeminiTransport geminiTransport, AnalysisPromptBuilder promptBuilder,
+      ObservationRegistry observationRegistry) {
+    this.cacheManager = cacheManager;
+    this.rateLimiter = rateLimiter;
+    this.geminiTransport = geminiTransport;
+    this.promptBuilder = promptBuilder;
+    this.observationRegistry = observationRegistry;
     this.objectMapper = new ObjectMapper();
     // Prevent failure if LLM returns extra fields not in our model
     this.objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
   }
 
-  @org.springframework.cache.annotation.Cacheable(value = "analyses", key = "{#resumeKey, #jobDescription}")
-  public AnalysisResponse analyzeResume(String resumeText, String jobDescription, List<String> missingKeywordsIgnored,
+  @org.springframework.cache.annotation.Cacheable(value = AnalysisCacheKeys.CACHE_NAME, key = "T(com.lockin.rewrite.cache.AnalysisCacheKeys).of(#resumeKey, #jobDescription)")
+  public AnalysisResponse analyzeResume(String resumeText, String jobDescription, List<String> missingKeywords,
       String resumeKey) {
 
     // 1. Single LLM Call for Analysis & Extraction
@@ -45,173 +79,320 @@ public class ResumeAnalyzerService {
     try {
       String jsonResponse = callGeminiApi(prompt);
       // 2. Parse Response
-      return parseResponse(jsonResponse, resumeText);
+      AnalysisResponse response = parseResponse(jsonResponse, resumeText);
+      response.setAnalysisId(AnalysisCacheKeys.of(resumeKey, jobDescription));
+
+      // Fall back to the locally computed gaps if the LLM left them out
+      if (response.getAnalysis() != null && response.getAnalysis().getMissingKeywords() == null) {
+        response.getAnalysis().setMissingKeywords(missingKeywords);
+      }
+      return response;
     } catch (Exception e) {
-      System.err.println("Fatal error in analyzeResume: " + e.getMessage());
-      e.printStackTrace();
+      log.warn("Analysis failed: {}", e.getMessage());
       throw e;
     }
   }
 
+  /**
+   * Streaming variant of {@link #analyzeResume}: parts of the result are handed
+   * to {@code listener} as Gemini produces them, and the assembled response is
+   * returned (and cached under the same key) once the stream ends. On a cache
+   * hit the listener is not called and the cached response is returned as-is.
+   */
+  public AnalysisResponse analyzeResumeStreaming(String resumeText, String jobDescription, String resumeKey,
+      AnalysisStreamListener listener) {
+    Cache cache = cacheManager.getCache(AnalysisCacheKeys.CACHE_NAME);
+    String cacheKey = AnalysisCacheKeys.of(resumeKey, jobDescription);
+    if (cache != null) {
+      AnalysisResponse cached = cache.get(cacheKey, AnalysisResponse.class);
+      if (cached != null) {
+        return cached;
+      }
+    }
+
+    String prompt = buildPrompt(resumeText, jobDescription);
+    StreamingAnalysisParser parser = new StreamingAnalysisParser(objectMapper, new SanitizingListener(listener));
+    StringBuilder fullOutput = new StringBuilder();
+
+    streamGeminiApi(prompt, chunk -> {
+      fullOutput.append(chunk);
+      parser.feed(chunk);
+    });
+
+    AnalysisResponse response = parseResponse(fullOutput.toString(), resumeText);
+    response.setAnalysisId(cacheKey);
+    if (cache != null) {
+      cache.put(cacheKey, response);
+    }
+    return response;
+  }
+
   private String buildPrompt(String resumeText, String jobDescription) {
-    // Truncate to avoid context window issues
-    String truncatedResume = resumeText.length() > 10000 ? resumeText.substring(0, 10000) : resumeText;
-    String truncatedJD = jobDescription.length() > 5000 ? jobDescription.substring(0, 5000) : jobDescription;
-
-    return String.format(
-        """
-            You are an expert Talent Acquisition Specialist and Career Coach. Validate the resume against the Job Description (JD).
-
-            **Core Logic**:
-            1. **Match Score**: 0-100. Evaluate based on specific Hard Skills, Soft Skills, Tools, and Cultural Fit.
-            2. **Keywords Extraction**:
-               - **jdKeywords**: Extract all critical technical and soft skills from the Job Description (e.g. "Java", "Agile").
-               - **matchKeywords**: Extract the subset of 'jdKeywords' that are explicitly present in the Resume.
-               - **matchKeywords**: Extract the subset of 'jdKeywords' that are explicitly present in the Resume.
-               - **missingKeywords**: Identify critical requirements (Tech Stack, Methodologies) in 'jdKeywords' that are COMPLETELY ABSENT from the Resume. **CRITICAL**: If a word appears *anywhere* in the resume text (even in a different section), you MUST NOT list it as missing.
-               - **addedKeywords**: Identify keywords that you have ADDED to the resume content during the improvement/rewrite process to better align with the JD.
-            3. **Structure Extraction**: EXTRACT the entire resume content into a structured format.
-            4. **Improvements**: REWRITE bullet points to be impactful, result-oriented, and aligned with the JD's tone.
-               - **STRATEGY**: Look at the 'missingKeywords' list. Try to **INTELLIGENTLY WEAVE** these missing keywords into the 'Improved' bullet points where they fit contextually.
-               - **GOAL**: The 'Improved' version should effectively "fill the gaps" and increase the match score.
-               - **CONSTRAINT**: Do not force a keyword if it makes no sense. The new text must remain truthful to the original experience, just framed better to highlight the skill if applicable.
-
-            **Constraints**:
-            - **CRITICAL**: DO NOT REMOVE INFORMATION. Preserve all original details, numbers, and context.
-            - **Tone**: Professional, confident, and action-oriented.
-            - **Experience & Project Summaries**:
-              * **EXTRACT** the summary exactly as it appears in the resume text.
-              * **DO NOT** summarize, rewrite, or shorten it.
-              * If no summary exists, return an empty string. **DO NOT** generate a summary.
-            - **Project Location**: Extract if present in input.
-            - **Work Experience Summary**: If 'description' text exists in input that isn't a bullet point, treat it as summary.
-            - **Keyword Strictness**:
-              * **STRICTLY EXCLUDE** all locations, city names, country names, and states (e.g., "Chicago", "London", "Remote", "India", "USA", "New York").
-              * **STRICTLY EXCLUDE** generic words (e.g., "Professional", "Senior", "Junior", "Experience", "Various").
-              * **STRICTLY EXCLUDE** dates, years, email addresses, and phone numbers.
-              * **Norm**: Return keywords in Title Case or Lowercase consistently.
-              * **Focus**: Only extract Technologies, Tools, Hard Skills (e.g. Java, AWS), and Specific Soft Skills (e.g. Leadership).
-            - **Formatting**:
-              * **NO MARKDOWN**: The 'improved' text must be plain text. Do NOT use **bold** or *italics*. It breaks the PDF generator.
-
-            **Resume Text**:
-            %s
-
-            **Job Description**:
-            %s
-
-            **OUTPUT FORMAT**:
-            Return ONLY a raw JSON object (no markdown). Use this exact structure:
-            {
-              "analysis": {
-                "matchScore": <0-100>,
-                "matchKeywords": ["string"],
-                "jdKeywords": ["string"],
-                "missingKeywords": ["string"],
-                "addedKeywords": ["string"],
-                "strengths": ["string"]
-              },
-              "suggestions": [
-                {
-                  "id": "unique-id",
-                  "type": "content",
-                  "originalText": "string",
-                  "suggestedText": "string",
-                  "reason": "string",
-                  "priority": "high"
-                }
-              ],
-              "resumeData": {
-                "personalInfo": {
-                  "name": "string",
-                  "phone": "string",
-                  "email": "string",
-                  "linkedin": "url or empty",
-                  "portfolio": "url or empty"
-                },
-                "education": [
-                  { "school": "string", "date": "string", "degree": "string", "gpa": "string" }
-                ],
-                "skills": {
-                  "languages": "string",
-                  "frameworks": "string",
-                  "tools": "string"
-                },
-                "experience": [
-                  {
-                    "title": "string",
-                    "company": "string",
-                    "date": "string",
-                    "location": "string",
-                    "summary": "string (Max 6 words, or empty)",
-                    "bulletPoints": [
-                      { "original": "original text", "improved": "improved text", "accepted": false }
-                    ]
-                  }
-                ],
-                "projects": [
-                  {
-                    "title": "string",
-                    "link": "url/string",
-                    "date": "string",
-                    "summary": "string (Max 6 words, or empty)",
-                    "location": "string (or empty)",
-                    "bulletPoints": [
-                      { "original": "original text", "improved": "improved text", "accepted": false }
-                    ]
-                  }
-                ]
-              }
-            }
-            """,
-        truncatedResume, truncatedJD);
+    return Observation.createNotStarted("analysis.prompt.build", observationRegistry)
+        .observe(() -> promptBuilder.build(resumeText, jobDescription));
   }
 
   private String callGeminiApi(String prompt) {
-    // Construct the full URL with the API key
-    String urlWithKey = apiUrl + "?key=" + apiKey;
+    return complete(prompt, expectedOutputTokens);
+  }
 
-    HttpHeaders headers = new HttpHeaders();
-    headers.setContentType(MediaType.APPLICATION_JSON);
+  /**
+   * Sends a prompt through the same limiter, retries and transport as the
+   * analysis and returns Gemini's text. {@code expectedOutputTokens} sizes the
+   * quota reservation; short answers should say so.
+   */
+  String complete(String prompt, int expectedOutputTokens) {
+    try {
+      return callGeminiApiAsync(prompt, expectedOutputTokens).join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException runtime) {
+        throw runtime;
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Non-blocking entry point: waits for admission from the rate limiter
+   * without holding a thread, then sends the request on the async Gemini
+   * transport. 429s are retried through the limiter, which pauses admission
+   * for the server's retry delay instead of sleeping on the caller's thread.
+   */
+  CompletableFuture<String> callGeminiApiAsync(String prompt) {
+    return callGeminiApiAsync(prompt, expectedOutputTokens);
+  }
 
+  private CompletableFuture<String> callGeminiApiAsync(String prompt, int expectedOutputTokens) {
     // Gemini Request Body Structure:
     // { "contents": [{ "parts": [{ "text": "..." }] }] }
     Map<String, String> part = Map.of("text", prompt);
     Map<String, Object> content = Map.of("parts", List.of(part));
     Map<String, Object> requestBody = Map.of("contents", List.of(content));
 
-    HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
+    // Callbacks run on whichever thread completes the future; keep the caller's span as the parent
+    return attemptGeminiCall(toJson(requestBody), AnalysisPromptBuilder.estimateTokens(prompt) + expectedOutputTokens,
+        1, observationRegistry.getCurrentObservation());
+  }
+
+  private CompletableFuture<String> attemptGeminiCall(byte[] requestBody, int estimatedTokens, int attempt,
+      Observation parent) {
+    Observation queue = Observation.createNotStarted("gemini.queue", observationRegistry)
+        .parentObservation(parent)
+        .start();
+    return observe(queue, rateLimiter.acquire(estimatedTokens))
+        .thenCompose(permit -> {
+          Observation request = geminiRequest("generate", attempt, parent);
+          return sendOrFail(() -> geminiTransport.postJson(URI.create(apiUrl), requestBody))
+              .handle((body, error) -> {
+                Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                stop(request, cause);
+                if (cause == null) {
+                  JsonNode root;
+                  try {
+                    // A 200 with a non-JSON body (proxy error page, truncation) must still release the permit
+                    root = readGeminiResponse(body);
+                  } catch (RuntimeException e) {
+                    permit.failed();
+                    throw e;
+                  }
+                  permit.success(root.path("usageMetadata").path("totalTokenCount").asInt(0));
+                  return extractContentFromResponse(root, body);
+                }
+                if (cause instanceof GeminiHttpException http && http.isRateLimited()) {
+                  Duration retryAfter = retryAfter(http, attempt);
+                  permit.rateLimited(retryAfter);
+                  log.warn("Gemini rate limit hit, attempt {} of {}, retry after {} ms", attempt, maxRetries,
+                      retryAfter.toMillis());
+                  String message = attempt == maxRetries
+                      ? "Gemini API Rate Limit Exceeded after retries: "
+                      : "Gemini API Rate Limit Exceeded on attempt " + attempt + ": ";
+                  throw new GeminiOverloadedException(message + http.getMessage(), retryAfter.toSeconds(), http);
+                }
+                permit.failed();
+                log.warn("Gemini call to {} failed ({}): {}", apiUrl, status(cause), cause.getMessage());
+                throw new RuntimeException("Failed to call Gemini API: " + cause.getMessage(), cause);
+              });
+        })
+        .exceptionallyCompose(error -> {
+          Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+          boolean rateLimited = cause instanceof GeminiOverloadedException
+              && cause.getCause() instanceof GeminiHttpException;
+          if (rateLimited && attempt < maxRetries) {
+            return attemptGeminiCall(requestBody, estimatedTokens, attempt + 1, parent);
+          }
+          return CompletableFuture.failedFuture(cause);
+        });
+  }
+
+  /**
+   * A started {@code gemini.request} observation: Gemini latency from the
+   * moment the limiter admits the call, tagged with its status when stopped.
+   */
+  private Observation geminiRequest(String operation, int attempt, Observation parent) {
+    return Observation.createNotStarted("gemini.request", observationRegistry)
+        .parentObservation(parent)
+        .lowCardinalityKeyValue("operation", operation)
+        .lowCardinalityKeyValue("retry", String.valueOf(attempt > 1))
+        .start();
+  }
+
+  private static void stop(Observation request, Throwable cause) {
+    request.lowCardinalityKeyValue("status", status(cause));
+    if (cause != null) {
+      request.error(cause);
+    }
+    request.stop();
+  }
+
+  /** The HTTP status of a Gemini call, or how it failed without one. */
+  private static String status(Throwable cause) {
+    if (cause == null) {
+      return "200";
+    }
+    if (cause instanceof GeminiHttpException http) {
+      return String.valueOf(http.getStatusCode());
+    }
+    return cause instanceof HttpTimeoutException || cause.getCause() instanceof HttpTimeoutException
+        ? "timeout" : "io_error";
+  }
 
-    int maxRetries = 3;
-    int retryDelay = 2000; // 2 seconds
+  /** Stops {@code observation} when {@code future} completes, recording its failure if any. */
+  private static <T> CompletableFuture<T> observe(Observation observation, CompletableFuture<T> future) {
+    return future.whenComplete((result, error) -> {
+      if (error != null) {
+        observation.error(error instanceof CompletionException ? error.getCause() : error);
+      }
+      observation.stop();
+    });
+  }
+
+  private static <T> CompletableFuture<T> sendOrFail(Supplier<CompletableFuture<T>> send) {
+    // Turn synchronous failures into a failed future so the permit is always released
+    try {
+      return send.get();
+    } catch (RuntimeException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+  }
+
+  private void streamGeminiApi(String prompt, Consumer<String> textConsumer) {
+    // streamGenerateContent with alt=sse: one "data: {...}" line per partial response
+    Map<String, String> part = Map.of("text", prompt);
+    Map<String, Object> content = Map.of("parts", List.of(part));
+    Map<String, Object> requestBody = Map.of("contents", List.of(content));
+    byte[] body = toJson(requestBody);
+    int estimatedTokens = estimateTokens(prompt);
 
     for (int attempt = 1; attempt <= maxRetries; attempt++) {
+      GeminiRateLimiter.Permit permit;
+      Observation queue = Observation.start("gemini.queue", observationRegistry);
       try {
-        ResponseEntity<String> response = restTemplate.postForEntity(urlWithKey, entity, String.class);
-        return extractContentFromResponse(response.getBody());
-      } catch (org.springframework.web.client.HttpClientErrorException.TooManyRequests e) {
-        System.err.println("Gemini 429 Rate Limit hit. Attempt " + attempt + " of " + maxRetries);
-        if (attempt == maxRetries) {
-          throw new RuntimeException("Gemini API Rate Limit Exceeded after retries: " + e.getMessage(), e);
-        }
-        try {
-          Thread.sleep(retryDelay * attempt); // Linear/Exponential backoff
-        } catch (InterruptedException ie) {
-          Thread.currentThread().interrupt();
-          throw new RuntimeException("Interrupted during retry wait", ie);
+        permit = rateLimiter.acquire(estimatedTokens).join();
+      } catch (CompletionException e) {
+        queue.error(e.getCause());
+        throw (RuntimeException) e.getCause();
+      } finally {
+        queue.stop();
+      }
+
+      Observation request = geminiRequest("stream", attempt, observationRegistry.getCurrentObservation());
+      int[] usageTokens = new int[1];
+      try {
+        sendOrFail(() -> geminiTransport.postStream(URI.create(streamUrl), body, line -> {
+          if (line.startsWith("data:")) {
+            JsonNode chunk = readGeminiResponse(line.substring(5).trim());
+            // Usage is cumulative; the last chunk carries the total
+            usageTokens[0] = chunk.path("usageMetadata").path("totalTokenCount").asInt(usageTokens[0]);
+            String text = extractChunkText(chunk);
+            if (!text.isEmpty()) {
+              textConsumer.accept(text);
+            }
+          }
+        })).join();
+        stop(request, null);
+        permit.success(usageTokens[0]);
+        return;
+      } catch (CompletionException e) {
+        stop(request, e.getCause());
+        if (e.getCause() instanceof GeminiHttpException http && http.isRateLimited()) {
+          // The 429 arrives before any body, so nothing has been streamed yet
+          Duration retryAfter = retryAfter(http, attempt);
+          permit.rateLimited(retryAfter);
+          log.warn("Gemini rate limit hit (stream), attempt {} of {}, retry after {} ms", attempt, maxRetries,
+              retryAfter.toMillis());
+          if (attempt == maxRetries) {
+            throw new GeminiOverloadedException("Gemini API Rate Limit Exceeded after retries: "
+                + http.getMessage(), retryAfter.toSeconds(), http);
+          }
+          continue;
         }
-      } catch (Exception e) {
-        System.err.println("Gemini API Call Failed. URL: " + urlWithKey);
-        System.err.println("Request Body: " + requestBody);
-        throw new RuntimeException("Failed to call Gemini API: " + e.getMessage(), e);
+        permit.failed();
+        log.warn("Gemini stream from {} failed ({}): {}", streamUrl, status(e.getCause()), e.getCause().getMessage());
+        throw new RuntimeException("Failed to stream from Gemini API: " + e.getCause().getMessage(), e.getCause());
+      }
+    }
+  }
+
+  private byte[] toJson(Object requestBody) {
+    try {
+      return objectMapper.writeValueAsBytes(requestBody);
+    } catch (Exception e) {
+      throw new RuntimeException("Failed to serialize Gemini request", e);
+    }
+  }
+
+  /**
+   * Approximate prompt tokens for quota accounting plus the expected size of
+   * the JSON answer; settled against Gemini's reported usage.
+   */
+  private int estimateTokens(String prompt) {
+    return AnalysisPromptBuilder.estimateTokens(prompt) + expectedOutputTokens;
+  }
+
+  /**
+   * Server-suggested delay: the Retry-After header if present, otherwise the
+   * RetryInfo "retryDelay" Gemini puts in the error body, otherwise a linear
+   * backoff.
+   */
+  private Duration retryAfter(GeminiHttpException e, int attempt) {
+    String header = e.getRetryAfterHeader().orElse(null);
+    if (header != null) {
+      try {
+        return Duration.ofSeconds(Long.parseLong(header.trim()));
+      } catch (NumberFormatException ignored) {
+        // HTTP-date form; fall through
       }
     }
-    throw new RuntimeException("Unreachable code in callGeminiApi");
+    Matcher matcher = RETRY_DELAY.matcher(e.getResponseBody());
+    if (matcher.find()) {
+      return Duration.ofMillis((long) (Double.parseDouble(matcher.group(1)) * 1000));
+    }
+    return Duration.ofSeconds(2L * attempt);
+  }
+
+  private JsonNode readGeminiResponse(String rawJson) {
+    try {
+      return objectMapper.readTree(rawJson);
+    } catch (Exception e) {
+      unparseable("Gemini API response", rawJson);
+      throw new RuntimeException("Failed to parse Gemini API response", e);
+    }
+  }
+
+  private String extractChunkText(JsonNode chunk) {
+    JsonNode parts = chunk.path("candidates").path(0)
+        .path("content")
+        .path("parts");
+    // A chunk may carry several parts; concatenate their text in order
+    StringBuilder text = new StringBuilder();
+    for (JsonNode part : parts) {
+      text.append(part.path("text").asText(""));
+    }
+    return text.toString();
   }
 
-  private String extractContentFromResponse(String rawJson) {
+  private String extractContentFromResponse(JsonNode root, String rawJson) {
     try {
-      JsonNode root = objectMapper.readTree(rawJson);
       // Gemini Response Structure:
       // candidates[0].content.parts[0].text
       return root.path("candidates")
@@ -222,18 +403,30 @@ public class ResumeAnalyzerService {
           .path("text")
           .asText();
     } catch (Exception e) {
-      System.err.println("Failed to parse Gemini API response. Raw Response: " + rawJson);
+      unparseable("Gemini API response", rawJson);
       throw new RuntimeException("Failed to parse Gemini API response", e);
     }
   }
 
-  private AnalysisResponse parseResponse(String llmOutput, String resumeText) {
+  /** Payloads can run to tens of KB; only their size is logged unless DEBUG is on. */
+  private static void unparseable(String what, String payload) {
+    log.warn("Unparseable {} ({} chars)", what, payload == null ? 0 : payload.length());
+    log.debug("Unparseable {}: {}", what, payload);
+  }
+
+  AnalysisResponse parseResponse(String llmOutput, String resumeText) {
+    return Observation.createNotStarted("analysis.response.parse", observationRegistry)
+        .observe(() -> readResponse(llmOutput, resumeText));
+  }
+
+  private AnalysisResponse readResponse(String llmOutput, String resumeText) {
     try {
       String cleanJson = extractJsonBlock(llmOutput);
       AnalysisResponse partialResponse = objectMapper.readValue(cleanJson, AnalysisResponse.class);
 
       // Re-attach original resume text
       partialResponse.setResumeText(resumeText);
+      partialResponse.setMode("full");
 
       // Set top-level score
       if (partialResponse.getAnalysis() != null) {
@@ -245,43 +438,74 @@ public class ResumeAnalyzerService {
 
       return partialResponse;
     } catch (Exception e) {
-      System.err.println("LLM Output that failed parsing: " + llmOutput);
+      unparseable("LLM output", llmOutput);
       throw new RuntimeException("Failed to parse LLM JSON output", e);
     }
   }
 
-  private void sanitizeResponse(AnalysisResponse response) {
+  void sanitizeResponse(AnalysisResponse response) {
     if (response.getResumeData() == null)
       return;
 
     // Clean Experience bullet points
     if (response.getResumeData().getExperience() != null) {
-      response.getResumeData().getExperience().forEach(exp -> {
-        if (exp.getBulletPoints() != null) {
-          exp.getBulletPoints().forEach(bp -> {
-            if (bp.getImproved() != null) {
-              bp.setImproved(bp.getImproved().replace("**", "").replace("*", ""));
-            }
-          });
-        }
-      });
+      response.getResumeData().getExperience().forEach(exp -> sanitizeBullets(exp.getBulletPoints()));
     }
 
     // Clean Projects bullet points
     if (response.getResumeData().getProjects() != null) {
-      response.getResumeData().getProjects().forEach(proj -> {
-        if (proj.getBulletPoints() != null) {
-          proj.getBulletPoints().forEach(bp -> {
-            if (bp.getImproved() != null) {
-              bp.setImproved(bp.getImproved().replace("**", "").replace("*", ""));
-            }
-          });
-        }
-      });
+      response.getResumeData().getProjects().forEach(proj -> sanitizeBullets(proj.getBulletPoints()));
+    }
+  }
+
+  private void sanitizeBullets(List<ResumeData.BulletPoint> bulletPoints) {
+    if (bulletPoints == null)
+      return;
+    bulletPoints.forEach(bp -> {
+      if (bp.getImproved() != null) {
+        bp.setImproved(stripMarkdown(bp.getImproved()));
+      }
+    });
+  }
+
+  static String stripMarkdown(String text) {
+    return text.replace("**", "").replace("*", "");
+  }
+
+  /**
+   * Applies the same markdown clean-up as {@link #sanitizeResponse} to
+   * sections before they are streamed out.
+   */
+  private class SanitizingListener implements AnalysisStreamListener {
+    private final AnalysisStreamListener delegate;
+
+    SanitizingListener(AnalysisStreamListener delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public void onAnalysis(Analysis analysis) {
+      delegate.onAnalysis(analysis);
+    }
+
+    @Override
+    public void onSuggestion(Suggestion suggestion) {
+      delegate.onSuggestion(suggestion);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void onResumeSection(String section, Object value) {
+      if ("experience".equals(section)) {
+        ((List<ResumeData.Experience>) value).forEach(exp -> sanitizeBullets(exp.getBulletPoints()));
+      } else if ("projects".equals(section)) {
+        ((List<ResumeData.Project>) value).forEach(proj -> sanitizeBullets(proj.getBulletPoints()));
+      }
+      delegate.onResumeSection(section, value);
     }
   }
 
-  private String extractJsonBlock(String text) {
+  static String extractJsonBlock(String text) {
     String trimmed = text.trim();
     // Remove markdown code blocks if present
     if (trimmed.startsWith("```json")) {
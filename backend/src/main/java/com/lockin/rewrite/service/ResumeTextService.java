@@ -0,0 +1,201 @@
+package com.lockin.rewrite.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+
+import java.io.IOException;
+import java.io.PushbackInputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Resolves the plain text of an uploaded resume.
+ *
+ * Parsed text is content-addressed by the object's S3 ETag, so the same file
+ * analyzed against many job descriptions is downloaded and parsed only once.
+ * Lookups go through a small in-memory LRU first and Redis second; only when
+ * both miss do we fetch the object (pinned to the ETag we looked up) and run
+ * PDFBox/POI.
+ *
+ * The object is streamed from S3 straight into the parser. Oversized files
+ * are refused from the HEAD alone, and the type comes from the first bytes of
+ * the body, not the key's extension, so a mislabeled or unsupported file is
+ * dropped before anything is buffered.
+ *
+ * S3 calls are observed as {@code resume.s3} (by operation; a GET is timed to
+ * its response headers, the body transfer counts towards
+ * {@code resume.parse}), text lookups are counted by the tier that answered
+ * and rejected uploads by reason.
+ */
+@Service
+public class ResumeTextService {
+
+    private static final Logger log = LoggerFactory.getLogger(ResumeTextService.class);
+
+    // v3: page furniture stripped from PDFs only, page numbers only at page edges
+    private static final String REDIS_KEY_PREFIX = "resume-text:v3::";
+
+    private final S3Client s3Client;
+    private final DocumentParserService documentParserService;
+    private final StringRedisTemplate redisTemplate;
+    private final String bucketName;
+    private final Duration redisTtl;
+    private final long maxBytes;
+    private final Map<String, String> localCache;
+    private final ObservationRegistry observationRegistry;
+    private final MeterRegistry meterRegistry;
+    private final Counter localHits;
+    private final Counter redisHits;
+    private final Counter misses;
+
+    public ResumeTextService(S3Client s3Client,
+            DocumentParserService documentParserService,
+            StringRedisTemplate redisTemplate,
+            @Value("${aws.s3.bucketName}") String bucketName,
+            @Value("${resume.text-cache.ttl:7d}") Duration redisTtl,
+            @Value("${resume.text-cache.local-max-entries:256}") int localMaxEntries,
+            @Value("${resume.max-bytes:26214400}") long maxBytes,
+            ObservationRegistry observationRegistry,
+            MeterRegistry meterRegistry) {
+        this.s3Client = s3Client;
+        this.documentParserService = documentParserService;
+        this.redisTemplate = redisTemplate;
+        this.bucketName = bucketName;
+        this.redisTtl = redisTtl;
+        this.maxBytes = maxBytes;
+        this.observationRegistry = observationRegistry;
+        this.meterRegistry = meterRegistry;
+        this.localHits = lookups(meterRegistry, "local");
+        this.redisHits = lookups(meterRegistry, "redis");
+        this.misses = lookups(meterRegistry, "miss");
+        this.localCache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > localMaxEntries;
+            }
+        });
+    }
+
+    public String getResumeText(String resumeKey) {
+        // 1. HEAD is enough to learn the content hash; no body is transferred
+        HeadObjectResponse head = s3("head").observe(() -> s3Client.headObject(HeadObjectRequest.builder()
+                .bucket(bucketName)
+                .key(resumeKey)
+                .build()));
+        String eTag = head.eTag();
+
+        // 2. In-memory tier, then Redis tier
+        String cached = lookup(eTag);
+        if (cached != null) {
+            return cached;
+        }
+
+        // 3. Miss: refuse oversized files before transferring any of the body
+        Long size = head.contentLength();
+        if (size != null && size > maxBytes) {
+            rejected(DocumentRejectedException.Reason.TOO_LARGE);
+            throw new DocumentRejectedException(DocumentRejectedException.Reason.TOO_LARGE,
+                    "Resume is larger than " + maxBytes / (1024 * 1024) + " MB");
+        }
+
+        // 4. Download exactly the version we looked up and parse it as it arrives
+        String resumeText;
+        ResponseInputStream<GetObjectResponse> object = s3("get").observe(() -> s3Client.getObject(
+                GetObjectRequest.builder()
+                        .bucket(bucketName)
+                        .key(resumeKey)
+                        .ifMatch(eTag)
+                        .build()));
+        try (object) {
+            try {
+                PushbackInputStream in = new PushbackInputStream(object, DocumentType.HEADER_LENGTH);
+                byte[] header = in.readNBytes(DocumentType.HEADER_LENGTH);
+                in.unread(header);
+                resumeText = documentParserService.parse(in, DocumentType.sniff(header, header.length),
+                        size != null ? size : -1);
+            } catch (DocumentRejectedException e) {
+                // Drop the connection instead of draining the rest of a file we won't read
+                object.abort();
+                rejected(e.getReason());
+                throw e;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to download resume " + resumeKey, e);
+        }
+
+        store(eTag, resumeText);
+        return resumeText;
+    }
+
+    private Observation s3(String operation) {
+        return Observation.createNotStarted("resume.s3", observationRegistry)
+                .lowCardinalityKeyValue("operation", operation);
+    }
+
+    private static Counter lookups(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("resume.text.lookups")
+                .description("Resume text lookups by the tier that answered")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private void rejected(DocumentRejectedException.Reason reason) {
+        meterRegistry.counter("resume.rejected", "reason", reason.name()).increment();
+    }
+
+    private String lookup(String eTag) {
+        if (eTag == null) {
+            misses.increment();
+            return null;
+        }
+        String text = localCache.get(eTag);
+        if (text != null) {
+            localHits.increment();
+            return text;
+        }
+        try {
+            text = redisTemplate.opsForValue().get(REDIS_KEY_PREFIX + eTag);
+        } catch (DataAccessException e) {
+            // Redis is an optimization only; fall through to a fresh parse
+            log.warn("Resume text cache lookup failed: {}", e.getMessage());
+            misses.increment();
+            return null;
+        }
+        if (text != null) {
+            redisHits.increment();
+            localCache.put(eTag, text);
+        } else {
+            misses.increment();
+        }
+        return text;
+    }
+
+    private void store(String eTag, String resumeText) {
+        if (eTag == null) {
+            return;
+        }
+        localCache.put(eTag, resumeText);
+        try {
+            redisTemplate.opsForValue().set(REDIS_KEY_PREFIX + eTag, resumeText, redisTtl);
+        } catch (DataAccessException e) {
+            log.warn("Resume text cache store failed: {}", e.getMessage());
+        }
+    }
+}
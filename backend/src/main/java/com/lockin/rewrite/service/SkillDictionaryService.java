@@ -0,0 +1,119 @@
+package com.lockin.rewrite.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Owns the compiled {@link SkillMatcher} for the skill dictionary at
+ * {@code skills.dictionary.location}.
+ *
+ * The automaton is built once at startup and swapped atomically on reload,
+ * so scans never block. When the dictionary is a plain file it is checked for
+ * changes on a fixed delay; a dictionary that fails to load keeps the
+ * previous automaton in service.
+ */
+@Service
+public class SkillDictionaryService {
+
+    private static final Logger log = LoggerFactory.getLogger(SkillDictionaryService.class);
+
+    private final Resource dictionary;
+    private volatile SkillMatcher matcher;
+    private volatile long lastModified;
+
+    public SkillDictionaryService(ResourceLoader resourceLoader,
+            @Value("${skills.dictionary.location:classpath:skills.txt}") String location) {
+        this.dictionary = resourceLoader.getResource(location);
+        this.lastModified = lastModified();
+        this.matcher = load();
+        log.info("Loaded skill dictionary from {}: {} skills, {} patterns, {} states", location,
+                matcher.getSkillCount(), matcher.getPatternCount(), matcher.getStateCount());
+    }
+
+    public List<SkillMatcher.Match> scan(CharSequence text) {
+        return matcher.scan(text);
+    }
+
+    public SkillMatcher getMatcher() {
+        return matcher;
+    }
+
+    /**
+     * Rebuilds the automaton from the dictionary. Throws if the dictionary
+     * cannot be read; the current automaton stays in place in that case.
+     */
+    public synchronized void reload() {
+        long modified = lastModified();
+        matcher = load();
+        lastModified = modified;
+    }
+
+    @Scheduled(fixedDelayString = "${skills.dictionary.reload-interval-ms:30000}")
+    public void reloadIfChanged() {
+        if (!dictionary.isFile()) {
+            // Classpath dictionaries inside the jar cannot change
+            return;
+        }
+        long modified = lastModified();
+        if (modified == lastModified) {
+            return;
+        }
+        try {
+            reload();
+            log.info("Reloaded skill dictionary: {} skills", matcher.getSkillCount());
+        } catch (RuntimeException e) {
+            log.warn("Failed to reload skill dictionary, keeping the previous one: {}", e.getMessage());
+        }
+    }
+
+    private SkillMatcher load() {
+        Map<String, List<String>> aliasesBySkill = new LinkedHashMap<>();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(dictionary.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.strip();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                // "canonical: alias, alias" - the first colon splits, so "c#" and "c++" are fine
+                int colon = line.indexOf(':');
+                String canonical = (colon < 0 ? line : line.substring(0, colon)).strip();
+                List<String> aliases = aliasesBySkill.computeIfAbsent(canonical, k -> new ArrayList<>());
+                if (colon >= 0) {
+                    for (String alias : line.substring(colon + 1).split(",")) {
+                        if (!alias.isBlank()) {
+                            aliases.add(alias.strip());
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read skill dictionary " + dictionary.getDescription(), e);
+        }
+        return SkillMatcher.compile(aliasesBySkill);
+    }
+
+    private long lastModified() {
+        try {
+            return dictionary.isFile() ? dictionary.lastModified() : 0L;
+        } catch (IOException e) {
+            return 0L;
+        }
+    }
+}
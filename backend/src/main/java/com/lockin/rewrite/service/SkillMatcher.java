@@ -0,0 +1,293 @@
+package com.lockin.rewrite.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable Aho-Corasick automaton over a skill dictionary.
+ *
+ * Patterns are compiled once into a dense DFA (failure links folded into the
+ * transition table), so {@link #scan} is a single left-to-right pass with one
+ * array lookup per character regardless of dictionary size. Matching folds
+ * case and treats any whitespace run as one space; a match only counts when
+ * it is not glued to a neighbouring letter or digit, and overlapping matches
+ * resolve to the leftmost, then longest.
+ */
+public final class SkillMatcher {
+
+    /** A matched skill; {@code start}/{@code end} are offsets into the scanned text. */
+    public record Match(int start, int end, String skill) {
+    }
+
+    private static final int MIN_STEM_LENGTH = 3;
+
+    private final String[] skills;
+    private final int[] asciiSymbols;
+    private final Map<Character, Integer> otherSymbols;
+    private final int alphabetSize;
+    private final int[] delta;
+    // Per state: canonical skill id if a pattern ends here (-1 otherwise), its
+    // length, and the next state on the failure chain where a pattern ends
+    private final int[] terminalSkill;
+    private final int[] terminalLength;
+    private final int[] outputLink;
+    private final int maxPatternLength;
+    private final int patternCount;
+
+    private SkillMatcher(String[] skills, int[] asciiSymbols, Map<Character, Integer> otherSymbols,
+            int alphabetSize, int[] delta, int[] terminalSkill, int[] terminalLength, int[] outputLink,
+            int maxPatternLength, int patternCount) {
+        this.skills = skills;
+        this.asciiSymbols = asciiSymbols;
+        this.otherSymbols = otherSymbols;
+        this.alphabetSize = alphabetSize;
+        this.delta = delta;
+        this.terminalSkill = terminalSkill;
+        this.terminalLength = terminalLength;
+        this.outputLink = outputLink;
+        this.maxPatternLength = maxPatternLength;
+        this.patternCount = patternCount;
+    }
+
+    /**
+     * Compiles canonical skills and their aliases. Each canonical form is a
+     * pattern of its own; patterns of three or more characters ending in a
+     * letter also match their plural ("api" → "apis", "class" → "classes").
+     */
+    public static SkillMatcher compile(Map<String, List<String>> aliasesBySkill) {
+        Map<String, Integer> patterns = new LinkedHashMap<>();
+        List<String> skills = new ArrayList<>();
+        for (Map.Entry<String, List<String>> entry : aliasesBySkill.entrySet()) {
+            String canonical = normalize(entry.getKey());
+            if (canonical.isEmpty()) {
+                continue;
+            }
+            int id = skills.size();
+            skills.add(canonical);
+            addPattern(patterns, canonical, id);
+            for (String alias : entry.getValue()) {
+                addPattern(patterns, normalize(alias), id);
+            }
+        }
+        // Plurals never shadow an explicit pattern
+        for (Map.Entry<String, Integer> entry : new ArrayList<>(patterns.entrySet())) {
+            String plural = plural(entry.getKey());
+            if (plural != null) {
+                patterns.putIfAbsent(plural, entry.getValue());
+            }
+        }
+
+        int[] asciiSymbols = new int[128];
+        Map<Character, Integer> otherSymbols = new HashMap<>();
+        int alphabetSize = 1; // 0 = any character no pattern uses
+        for (String pattern : patterns.keySet()) {
+            for (int i = 0; i < pattern.length(); i++) {
+                char c = pattern.charAt(i);
+                if (c < 128) {
+                    if (asciiSymbols[c] == 0) {
+                        asciiSymbols[c] = alphabetSize++;
+                    }
+                } else if (!otherSymbols.containsKey(c)) {
+                    otherSymbols.put(c, alphabetSize++);
+                }
+            }
+        }
+
+        // Trie
+        List<int[]> trie = new ArrayList<>();
+        List<Integer> terminalSkill = new ArrayList<>();
+        List<Integer> terminalLength = new ArrayList<>();
+        trie.add(newRow(alphabetSize));
+        terminalSkill.add(-1);
+        terminalLength.add(0);
+        int maxPatternLength = 0;
+        for (Map.Entry<String, Integer> entry : patterns.entrySet()) {
+            String pattern = entry.getKey();
+            int state = 0;
+            for (int i = 0; i < pattern.length(); i++) {
+                int symbol = symbol(pattern.charAt(i), asciiSymbols, otherSymbols);
+                int next = trie.get(state)[symbol];
+                if (next < 0) {
+                    next = trie.size();
+                    trie.add(newRow(alphabetSize));
+                    terminalSkill.add(-1);
+                    terminalLength.add(0);
+                    trie.get(state)[symbol] = next;
+                }
+                state = next;
+            }
+            terminalSkill.set(state, entry.getValue());
+            terminalLength.set(state, pattern.length());
+            maxPatternLength = Math.max(maxPatternLength, pattern.length());
+        }
+
+        // Breadth-first: failure links, output links and the full DFA
+        int states = trie.size();
+        int[] delta = new int[states * alphabetSize];
+        int[] failure = new int[states];
+        int[] outputLink = new int[states];
+        Arrays.fill(outputLink, -1);
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        int[] root = trie.get(0);
+        for (int symbol = 0; symbol < alphabetSize; symbol++) {
+            int child = root[symbol];
+            if (child < 0) {
+                delta[symbol] = 0;
+            } else {
+                delta[symbol] = child;
+                failure[child] = 0;
+                queue.add(child);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            int fail = failure[state];
+            outputLink[state] = terminalSkill.get(fail) >= 0 ? fail : outputLink[fail];
+            int[] row = trie.get(state);
+            for (int symbol = 0; symbol < alphabetSize; symbol++) {
+                int child = row[symbol];
+                if (child < 0) {
+                    delta[state * alphabetSize + symbol] = delta[fail * alphabetSize + symbol];
+                } else {
+                    delta[state * alphabetSize + symbol] = child;
+                    failure[child] = delta[fail * alphabetSize + symbol];
+                    queue.add(child);
+                }
+            }
+        }
+
+        return new SkillMatcher(skills.toArray(new String[0]), asciiSymbols, otherSymbols, alphabetSize, delta,
+                terminalSkill.stream().mapToInt(Integer::intValue).toArray(),
+                terminalLength.stream().mapToInt(Integer::intValue).toArray(),
+                outputLink, maxPatternLength, patterns.size());
+    }
+
+    /**
+     * Finds every dictionary skill in {@code text}, in text order, without
+     * overlaps.
+     */
+    public List<Match> scan(CharSequence text) {
+        List<Match> candidates = new ArrayList<>();
+        if (text == null || maxPatternLength == 0) {
+            return candidates;
+        }
+
+        // Original offset of each of the last maxPatternLength normalized chars
+        int[] origin = new int[maxPatternLength];
+        int normalized = 0;
+        int state = 0;
+        boolean lastWasSpace = true;
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                if (lastWasSpace) {
+                    continue;
+                }
+                c = ' ';
+                lastWasSpace = true;
+            } else {
+                c = Character.toLowerCase(c);
+                lastWasSpace = false;
+            }
+            origin[normalized % maxPatternLength] = i;
+            state = delta[state * alphabetSize + symbol(c, asciiSymbols, otherSymbols)];
+
+            for (int out = terminalSkill[state] >= 0 ? state : outputLink[state]; out >= 0; out = outputLink[out]) {
+                int start = origin[(normalized - terminalLength[out] + 1) % maxPatternLength];
+                if (isBoundary(text, start - 1) && isBoundary(text, i + 1)) {
+                    candidates.add(new Match(start, i + 1, skills[terminalSkill[out]]));
+                }
+            }
+            normalized++;
+        }
+
+        if (candidates.size() < 2) {
+            return candidates;
+        }
+        candidates.sort(Comparator.comparingInt(Match::start)
+                .thenComparing(Comparator.comparingInt(Match::end).reversed()));
+        List<Match> matches = new ArrayList<>(candidates.size());
+        int covered = 0;
+        for (Match candidate : candidates) {
+            if (candidate.start() >= covered) {
+                matches.add(candidate);
+                covered = candidate.end();
+            }
+        }
+        return matches;
+    }
+
+    public int getSkillCount() {
+        return skills.length;
+    }
+
+    public int getPatternCount() {
+        return patternCount;
+    }
+
+    public int getStateCount() {
+        return terminalSkill.length;
+    }
+
+    private static boolean isBoundary(CharSequence text, int index) {
+        return index < 0 || index >= text.length() || !Character.isLetterOrDigit(text.charAt(index));
+    }
+
+    private static int symbol(char c, int[] asciiSymbols, Map<Character, Integer> otherSymbols) {
+        return c < 128 ? asciiSymbols[c] : otherSymbols.getOrDefault(c, 0);
+    }
+
+    private static int[] newRow(int alphabetSize) {
+        int[] row = new int[alphabetSize];
+        Arrays.fill(row, -1);
+        return row;
+    }
+
+    private static void addPattern(Map<String, Integer> patterns, String pattern, int skill) {
+        if (!pattern.isEmpty()) {
+            // First definition wins if two skills claim the same alias
+            patterns.putIfAbsent(pattern, skill);
+        }
+    }
+
+    private static String plural(String pattern) {
+        int length = pattern.length();
+        if (length < MIN_STEM_LENGTH || !Character.isLetter(pattern.charAt(length - 1))) {
+            return null;
+        }
+        if (pattern.endsWith("s") || pattern.endsWith("x") || pattern.endsWith("z")
+                || pattern.endsWith("ch") || pattern.endsWith("sh")) {
+            return pattern + "es";
+        }
+        return pattern + "s";
+    }
+
+    static String normalize(String pattern) {
+        StringBuilder normalized = new StringBuilder(pattern.length());
+        boolean lastWasSpace = true;
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (Character.isWhitespace(c)) {
+                if (!lastWasSpace) {
+                    normalized.append(' ');
+                    lastWasSpace = true;
+                }
+            } else {
+                normalized.append(Character.toLowerCase(c));
+                lastWasSpace = false;
+            }
+        }
+        int end = normalized.length();
+        if (end > 0 && normalized.charAt(end - 1) == ' ') {
+            normalized.setLength(end - 1);
+        }
+        return normalized.toString();
+    }
+}
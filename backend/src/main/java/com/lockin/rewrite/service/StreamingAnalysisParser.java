@@ -0,0 +1,156 @@
+package com.lockin.rewrite.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import com.lockin.rewrite.model.Analysis;
+import com.lockin.rewrite.model.Suggestion;
+import com.lockin.rewrite.model.resume.ResumeData;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Incremental parser for the analysis JSON as Gemini streams it.
+ *
+ * Text chunks are fed into Jackson's non-blocking parser; the {@code analysis}
+ * object, each {@code suggestions} element and each {@code resumeData} section
+ * are captured into a {@link TokenBuffer} and handed to the listener the moment
+ * their closing token arrives. Anything before the root object (e.g. a
+ * markdown fence) and after it is ignored. If the stream turns out not to be
+ * valid JSON, events simply stop; the caller still parses the full text at the
+ * end.
+ */
+class StreamingAnalysisParser {
+
+    private enum Target {
+        ANALYSIS, SUGGESTION, SECTION
+    }
+
+    private final ObjectMapper objectMapper;
+    private final AnalysisStreamListener listener;
+    private final Map<String, JavaType> sectionTypes;
+    private final JsonParser parser;
+    private final ByteArrayFeeder feeder;
+
+    private boolean started;
+    private boolean finished;
+    private int depth;
+    private String rootField;
+    private String sectionField;
+
+    private TokenBuffer capture;
+    private Target captureTarget;
+    private String captureSection;
+    private int captureDepth;
+
+    StreamingAnalysisParser(ObjectMapper objectMapper, AnalysisStreamListener listener) {
+        this.objectMapper = objectMapper;
+        this.listener = listener;
+        this.sectionTypes = Map.of(
+                "personalInfo", objectMapper.constructType(ResumeData.PersonalInfo.class),
+                "skills", objectMapper.constructType(ResumeData.Skills.class),
+                "education", objectMapper.getTypeFactory().constructCollectionType(List.class,
+                        ResumeData.Education.class),
+                "experience", objectMapper.getTypeFactory().constructCollectionType(List.class,
+                        ResumeData.Experience.class),
+                "projects", objectMapper.getTypeFactory().constructCollectionType(List.class,
+                        ResumeData.Project.class));
+        try {
+            this.parser = objectMapper.getFactory().createNonBlockingByteArrayParser();
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not create streaming JSON parser", e);
+        }
+        this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+    }
+
+    void feed(String chunk) {
+        if (finished || chunk == null || chunk.isEmpty()) {
+            return;
+        }
+        if (!started) {
+            int start = chunk.indexOf('{');
+            if (start < 0) {
+                return;
+            }
+            chunk = chunk.substring(start);
+            started = true;
+        }
+        try {
+            byte[] bytes = chunk.getBytes(StandardCharsets.UTF_8);
+            feeder.feedInput(bytes, 0, bytes.length);
+            JsonToken token;
+            while (!finished && (token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+                onToken(token);
+            }
+        } catch (IOException e) {
+            // Not valid JSON after all; stop emitting and leave it to the final parse
+            finished = true;
+        }
+    }
+
+    private void onToken(JsonToken token) throws IOException {
+        if (capture != null) {
+            capture.copyCurrentEvent(parser);
+            if (token.isStructStart()) {
+                captureDepth++;
+                depth++;
+            } else if (token.isStructEnd()) {
+                captureDepth--;
+                depth--;
+                if (captureDepth == 0) {
+                    emit();
+                }
+            }
+            return;
+        }
+
+        if (token.isStructStart()) {
+            depth++;
+            if (depth == 2 && "analysis".equals(rootField) && token == JsonToken.START_OBJECT) {
+                startCapture(Target.ANALYSIS, null);
+            } else if (depth == 3 && "suggestions".equals(rootField) && token == JsonToken.START_OBJECT) {
+                startCapture(Target.SUGGESTION, null);
+            } else if (depth == 3 && "resumeData".equals(rootField) && sectionTypes.containsKey(sectionField)) {
+                startCapture(Target.SECTION, sectionField);
+            }
+        } else if (token.isStructEnd()) {
+            depth--;
+            if (depth == 0) {
+                finished = true;
+            }
+        } else if (token == JsonToken.FIELD_NAME) {
+            if (depth == 1) {
+                rootField = parser.currentName();
+            } else if (depth == 2 && "resumeData".equals(rootField)) {
+                sectionField = parser.currentName();
+            }
+        }
+    }
+
+    private void startCapture(Target target, String section) throws IOException {
+        capture = new TokenBuffer(parser);
+        capture.copyCurrentEvent(parser);
+        captureTarget = target;
+        captureSection = section;
+        captureDepth = 1;
+    }
+
+    private void emit() throws IOException {
+        TokenBuffer captured = capture;
+        capture = null;
+        try (JsonParser replay = captured.asParser(objectMapper)) {
+            switch (captureTarget) {
+                case ANALYSIS -> listener.onAnalysis(objectMapper.readValue(replay, Analysis.class));
+                case SUGGESTION -> listener.onSuggestion(objectMapper.readValue(replay, Suggestion.class));
+                case SECTION -> listener.onResumeSection(captureSection,
+                        objectMapper.readValue(replay, sectionTypes.get(captureSection)));
+            }
+        }
+    }
+}
@@ -0,0 +1,349 @@
+package com.lockin.rewrite.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Pool of warm Tectonic working directories.
+ *
+ * Each worker directory holds the constant preamble as {@code preamble.tex},
+ * written once, and keeps Tectonic's intermediates between renders: with the
+ * previous {@code .aux} already in place the structure rarely changes, so
+ * Tectonic settles in a single pass instead of re-running. At startup every
+ * worker compiles a representative document, which fills Tectonic's bundle
+ * and format cache (the preamble's packages, fonts and the XeLaTeX format);
+ * after that renders run with {@code --only-cached} and never touch the
+ * network.
+ *
+ * The pool is also the render bulkhead: a render borrows a directory for its
+ * duration, so at most {@code pool-size} Tectonic processes run at once.
+ * Beyond that, up to {@code max-queue} renders wait, each for at most
+ * {@code queue-timeout}; anything more is shed immediately with
+ * {@link RenderOverloadedException}, and a process that overruns its timeout
+ * is killed.
+ *
+ * Each render is observed as {@code latex.compile}; the wait for a worker
+ * is timed as {@code latex.queue.wait} and output sizes are recorded in
+ * {@code latex.pdf.size}.
+ */
+@Service
+public class TectonicWorkerPool implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(TectonicWorkerPool.class);
+
+    static final String PREAMBLE_FILE = "preamble.tex";
+    private static final String DOCUMENT_FILE = "resume.tex";
+    private static final String OUTPUT_FILE = "resume.pdf";
+    private static final String LOG_FILE = "tectonic.log";
+
+    // Touches every macro and package the real template uses
+    private static final String WARMUP_BODY = "\\begin{document}\n"
+            + "\\begin{center}{\\huge \\scshape Warmup} \\\\ \\small \\faPhone\\ \\faEnvelope\\ \\faLinkedin\\ \\Mundus"
+            + " \\href{https://example.com}{\\underline{link}}\\end{center}\n"
+            + "\\section{WARMUP}\n"
+            + "\\resumeSubHeadingListStart\n"
+            + "  \\resumeSubheading{School}{2024}{Degree}{4.0}\n"
+            + "  \\resumeProjectHeading{\\textbf{Project}}{2024}\n"
+            + "  \\resumeItemListStart\n"
+            + "    \\resumeItem{Item \\& more}\n"
+            + "  \\resumeItemListEnd\n"
+            + "\\resumeSubHeadingListEnd\n"
+            + "\\end{document}\n";
+
+    private final String command;
+    private final Duration timeout;
+    private final Path baseDir;
+    private final boolean temporaryBaseDir;
+    private final BlockingQueue<Path> idle;
+    private final List<Path> workers = new ArrayList<>();
+    private final Semaphore admission;
+    private final Duration queueTimeout;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final LongAdder rejectedCount = new LongAdder();
+    private final LongAdder queueTimeoutCount = new LongAdder();
+    private final LongAdder processTimeoutCount = new LongAdder();
+    private final LongAdder waitCount = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final LongAccumulator maxWaitNanos = new LongAccumulator(Math::max, 0);
+    private volatile long averageRenderNanos = TimeUnit.SECONDS.toNanos(1);
+    private volatile boolean warmed;
+    private final ObservationRegistry observationRegistry;
+    private final Timer queueWait;
+    private final DistributionSummary pdfSize;
+
+    public TectonicWorkerPool(@Value("${latex.tectonic.command:tectonic}") String command,
+            @Value("${latex.tectonic.timeout:60s}") Duration timeout,
+            @Value("${latex.workers.pool-size:0}") int poolSize,
+            @Value("${latex.workers.dir:}") String workersDir,
+            @Value("${latex.render.max-queue:32}") int maxQueue,
+            @Value("${latex.render.queue-timeout:10s}") Duration queueTimeout,
+            ObservationRegistry observationRegistry,
+            MeterRegistry meterRegistry) throws IOException {
+        this.command = command;
+        this.observationRegistry = observationRegistry;
+        this.queueWait = Timer.builder("latex.queue.wait")
+                .description("Time renders wait for a free Tectonic worker")
+                .register(meterRegistry);
+        this.pdfSize = DistributionSummary.builder("latex.pdf.size")
+                .description("Size of compiled PDFs")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.timeout = timeout;
+        this.queueTimeout = queueTimeout;
+        int size = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+        this.admission = new Semaphore(size + maxQueue);
+        this.temporaryBaseDir = workersDir.isBlank();
+        this.baseDir = temporaryBaseDir
+                ? Files.createTempDirectory("tectonic-workers")
+                : Files.createDirectories(Path.of(workersDir));
+        this.idle = new LinkedBlockingQueue<>(size);
+        for (int i = 0; i < size; i++) {
+            Path worker = Files.createDirectories(baseDir.resolve("worker-" + i));
+            Files.writeString(worker.resolve(PREAMBLE_FILE), LatexService.PREAMBLE, StandardCharsets.UTF_8);
+            workers.add(worker);
+            idle.add(worker);
+        }
+    }
+
+    /**
+     * Compiles the document body (everything from {@code \begin{document}}
+     * on) against the shared preamble and returns the PDF.
+     *
+     * @throws RenderOverloadedException if the wait queue is full or no worker
+     *                                   frees up within the queue timeout
+     */
+    public byte[] compile(String body) throws IOException, InterruptedException {
+        return compile(body, Files::readAllBytes);
+    }
+
+    /**
+     * Like {@link #compile(String)}, but hands {@code handler} the compiled
+     * PDF file in place (e.g. to stream it somewhere) instead of reading it
+     * into memory. The file is deleted when the handler returns.
+     */
+    public <T> T compile(String body, OutputHandler<T> handler) throws IOException, InterruptedException {
+        if (!admission.tryAcquire()) {
+            rejectedCount.increment();
+            throw new RenderOverloadedException("Too many PDF renders in progress", retryAfterSeconds());
+        }
+        try {
+            long waitStart = System.nanoTime();
+            queued.incrementAndGet();
+            Path worker;
+            try {
+                worker = idle.poll(queueTimeout.toNanos(), TimeUnit.NANOSECONDS);
+            } finally {
+                queued.decrementAndGet();
+            }
+            long waited = System.nanoTime() - waitStart;
+            waitCount.increment();
+            waitNanos.add(waited);
+            maxWaitNanos.accumulate(waited);
+            queueWait.record(waited, TimeUnit.NANOSECONDS);
+            if (worker == null) {
+                queueTimeoutCount.increment();
+                throw new RenderOverloadedException("Timed out waiting for a PDF render slot", retryAfterSeconds());
+            }
+
+            try {
+                long renderStart = System.nanoTime();
+                Observation render = Observation.createNotStarted("latex.compile", observationRegistry)
+                        .lowCardinalityKeyValue("warm", String.valueOf(warmed))
+                        .start();
+                Path pdf;
+                try {
+                    pdf = compileIn(worker, body);
+                } catch (IOException | InterruptedException | RuntimeException e) {
+                    render.error(e);
+                    throw e;
+                } finally {
+                    render.stop();
+                }
+                pdfSize.record(Files.size(pdf));
+                // Smoothed, for the Retry-After estimate
+                averageRenderNanos = (averageRenderNanos * 7 + (System.nanoTime() - renderStart)) / 8;
+                return handler.handle(pdf);
+            } finally {
+                // Only the output goes; intermediates stay warm for the next render
+                Files.deleteIfExists(worker.resolve(OUTPUT_FILE));
+                idle.add(worker);
+            }
+        } finally {
+            admission.release();
+        }
+    }
+
+    /** Roughly how long until the current queue has drained. */
+    private long retryAfterSeconds() {
+        long rounds = queued.get() / workers.size() + 1;
+        return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(rounds * averageRenderNanos) + 1);
+    }
+
+    public boolean isWarmed() {
+        return warmed;
+    }
+
+    public int getPoolSize() {
+        return workers.size();
+    }
+
+    public int getIdleWorkers() {
+        return idle.size();
+    }
+
+    public int getQueued() {
+        return queued.get();
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    public long getQueueTimeoutCount() {
+        return queueTimeoutCount.sum();
+    }
+
+    public long getProcessTimeoutCount() {
+        return processTimeoutCount.sum();
+    }
+
+    public double getAverageWaitMillis() {
+        long count = waitCount.sum();
+        return count == 0 ? 0.0 : waitNanos.sum() / (double) count / 1_000_000.0;
+    }
+
+    public double getMaxWaitMillis() {
+        return maxWaitNanos.get() / 1_000_000.0;
+    }
+
+    public double getAverageRenderMillis() {
+        return averageRenderNanos / 1_000_000.0;
+    }
+
+    /**
+     * Primes Tectonic's cache and every worker's intermediates in the
+     * background; renders before this finishes simply run cold.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        Thread.ofVirtual().name("tectonic-warmup").start(() -> {
+            long start = System.nanoTime();
+            try {
+                // One at a time: the first populates the shared cache, the rest only prime their aux files
+                for (int i = 0; i < workers.size(); i++) {
+                    compile(WARMUP_BODY);
+                }
+                warmed = true;
+                log.info("Tectonic workers warmed in {} ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            } catch (Exception e) {
+                log.warn("Tectonic warm-up failed, renders will run cold: {}", e.getMessage());
+            }
+        });
+    }
+
+    @FunctionalInterface
+    public interface OutputHandler<T> {
+        T handle(Path pdf) throws IOException;
+    }
+
+    private Path compileIn(Path worker, String body) throws IOException, InterruptedException {
+        Files.writeString(worker.resolve(DOCUMENT_FILE), "\\input{" + PREAMBLE_FILE + "}\n" + body,
+                StandardCharsets.UTF_8);
+        Path pdf = worker.resolve(OUTPUT_FILE);
+        Files.deleteIfExists(pdf);
+
+        List<String> args = new ArrayList<>(List.of(command, "--keep-intermediates"));
+        if (warmed) {
+            args.add("--only-cached");
+        }
+        args.add(DOCUMENT_FILE);
+        // Output goes to a file rather than a pipe, so a chatty or hung engine
+        // can't block us past the timeout
+        Path engineLog = worker.resolve(LOG_FILE);
+        ProcessBuilder pb = new ProcessBuilder(args);
+        pb.directory(worker.toFile());
+        pb.redirectErrorStream(true);
+        pb.redirectOutput(engineLog.toFile());
+        Process process = pb.start();
+
+        boolean finished = process.waitFor(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        if (!finished) {
+            processTimeoutCount.increment();
+            // Kill anything the engine spawned too, or it keeps the worker directory busy
+            process.descendants().forEach(ProcessHandle::destroyForcibly);
+            process.destroyForcibly().waitFor(5, TimeUnit.SECONDS);
+        }
+
+        boolean failed = !finished || process.exitValue() != 0;
+        // The engine's output is only read when someone will see it: on failure, or at DEBUG
+        if (failed || log.isDebugEnabled()) {
+            String output = new String(Files.readAllBytes(engineLog), StandardCharsets.UTF_8);
+            if (failed) {
+                log.warn("Tectonic failed ({}):\n{}", finished ? "exit " + process.exitValue() : "timed out", output);
+            } else {
+                log.debug("Tectonic output:\n{}", output);
+            }
+        }
+
+        if (failed) {
+            // Don't let a broken .aux poison the next render in this directory
+            resetWorker(worker);
+            throw new RuntimeException("Latex compilation failed");
+        }
+
+        if (!Files.exists(pdf)) {
+            throw new RuntimeException("PDF file not generated");
+        }
+        return pdf;
+    }
+
+    private static void resetWorker(Path worker) throws IOException {
+        try (Stream<Path> files = Files.list(worker)) {
+            for (Path file : files.toList()) {
+                if (!file.getFileName().toString().equals(PREAMBLE_FILE)) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        if (!temporaryBaseDir) {
+            // A configured directory keeps its warm intermediates across restarts
+            return;
+        }
+        try (Stream<Path> files = Files.walk(baseDir)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+}
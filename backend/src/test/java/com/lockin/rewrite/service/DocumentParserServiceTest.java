@@ -0,0 +1,115 @@
+package com.lockin.rewrite.service;
+
+import io.micrometer.observation.ObservationRegistry;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DocumentParserServiceTest {
+
+    private static final long MAX_DOCX_PART_BYTES = 32L * 1024 * 1024;
+
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void parallelRangesMatchSequentialExtraction() throws IOException {
+        // 11 pages over 4 workers: ranges 1-3, 4-6, 7-9 and a short 10-11
+        byte[] pdf = pdf(11);
+        DocumentParserService parallel = parser(pool, 6);
+        DocumentParserService sequential = parser(pool, Integer.MAX_VALUE);
+
+        String expected = sequential.parsePdf(new ByteArrayInputStream(pdf), pdf.length);
+
+        assertTrue(expected.contains(line(1, 1)));
+        assertTrue(expected.contains(line(11, 5)));
+        assertEquals(expected, parallel.parsePdf(new ByteArrayInputStream(pdf), pdf.length));
+        // Unknown size goes through the scratch file, which every range reopens
+        assertEquals(expected, parallel.parsePdf(new ByteArrayInputStream(pdf), -1));
+    }
+
+    @Test
+    void pageOrderIsKeptAcrossRanges() throws IOException {
+        byte[] pdf = pdf(8);
+        String text = parser(pool, 2).parsePdf(new ByteArrayInputStream(pdf), pdf.length);
+
+        int previous = -1;
+        for (int page = 1; page <= 8; page++) {
+            int at = text.indexOf(line(page, 1));
+            assertTrue(at > previous, "page " + page + " out of order");
+            previous = at;
+        }
+    }
+
+    @Test
+    void pageNumbersAreOnlyDroppedAtPageEdges() throws IOException {
+        byte[] pdf = pdf(3);
+        String text = parser(pool, Integer.MAX_VALUE).parsePdf(new ByteArrayInputStream(pdf), pdf.length);
+
+        assertEquals(3, text.lines().filter(line -> line.strip().equals("2020")).count(), text);
+        assertTrue(text.lines().noneMatch(line -> line.strip().matches("\\d of 3")), text);
+        assertEquals(1, text.lines().filter(line -> line.strip().equals("Jane Doe")).count(), text);
+    }
+
+    private static DocumentParserService parser(ForkJoinPool pool, int parallelMinPages) {
+        return new DocumentParserService(50, pool, 1024 * 1024, parallelMinPages, 2, MAX_DOCX_PART_BYTES,
+                ObservationRegistry.NOOP);
+    }
+
+    /**
+     * Body text that differs per page in letters, not just digits, so edge
+     * lines are not mistaken for a running header or footer.
+     */
+    private static String line(int page, int line) {
+        return "Entry " + (char) ('a' + page - 1) + (char) ('a' + line - 1) + " built services in Java";
+    }
+
+    private static byte[] pdf(int pages) throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            PDType1Font font = new PDType1Font(Standard14Fonts.FontName.HELVETICA);
+            for (int page = 1; page <= pages; page++) {
+                PDPage pdPage = new PDPage();
+                document.addPage(pdPage);
+                try (PDPageContentStream content = new PDPageContentStream(document, pdPage)) {
+                    content.beginText();
+                    content.setFont(font, 11);
+                    content.setLeading(14);
+                    content.newLineAtOffset(72, 720);
+                    content.showText("Jane Doe");
+                    content.newLine();
+                    for (int line = 1; line <= 5; line++) {
+                        content.showText(line(page, line));
+                        content.newLine();
+                        if (line == 2) {
+                            // A digit-only line that is content, not a page number
+                            content.showText("2020");
+                            content.newLine();
+                        }
+                    }
+                    content.newLine();
+                    content.showText(page + " of " + pages);
+                    content.endText();
+                }
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            document.save(out);
+            return out.toByteArray();
+        }
+    }
+}
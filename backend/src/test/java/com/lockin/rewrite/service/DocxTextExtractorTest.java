@@ -0,0 +1,262 @@
+package com.lockin.rewrite.service;
+
+import org.apache.poi.xwpf.extractor.XWPFWordExtractor;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Conformance of {@link DocxTextExtractor} with POI's
+ * {@code XWPFWordExtractor}, which it replaced. Documents are assembled from
+ * hand-written parts so each case exercises exactly the markup it names.
+ */
+class DocxTextExtractorTest {
+
+    private static final long MAX_PART_BYTES = 32L * 1024 * 1024;
+
+    private static final String NAMESPACES = "xmlns:w=\"http://schemas.openxmlformats.org/wordprocessingml/2006/main\""
+            + " xmlns:r=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships\""
+            + " xmlns:wp=\"http://schemas.openxmlformats.org/drawingml/2006/wordprocessingDrawing\""
+            + " xmlns:a=\"http://schemas.openxmlformats.org/drawingml/2006/main\""
+            + " xmlns:pic=\"http://schemas.openxmlformats.org/drawingml/2006/picture\"";
+
+    private static final String REL = "http://schemas.openxmlformats.org/officeDocument/2006/relationships/";
+
+    // Only the PNG signature; neither extractor decodes images
+    private static final byte[] PNG = {(byte) 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A};
+
+    @Test
+    void paragraphsTabsBreaksAndHyperlinks() throws Exception {
+        byte[] docx = new Docx()
+                .body(paragraph(run("Jane Doe"))
+                        + paragraph("")
+                        + paragraph(run("Skills:") + "<w:r><w:tab/></w:r>" + run("Java") + "<w:r><w:br/></w:r>"
+                                + run("Kotlin"))
+                        + paragraph("<w:hyperlink r:id=\"rIdLink\">" + run("portfolio") + "</w:hyperlink>"))
+                .relationship("rIdLink", "hyperlink", "https://example.com", true)
+                .build();
+
+        assertMatchesPoi(docx);
+    }
+
+    @Test
+    void tables() throws Exception {
+        byte[] docx = new Docx()
+                .body(paragraph(run("Experience"))
+                        + table(row(cell(paragraph(run("Acme"))), cell(paragraph(run("2020")) + paragraph(run("2022")))),
+                                row(cell(paragraph(run("Globex"))), cell(paragraph(""))))
+                        + paragraph(run("After")))
+                .build();
+
+        assertMatchesPoi(docx);
+    }
+
+    @Test
+    void nestedTables() throws Exception {
+        String inner = table(row(cell(paragraph(run("in-a"))), cell(paragraph(run("in-b")))),
+                row(cell(paragraph(run("in-c"))), cell(paragraph(run("in-d")))));
+        byte[] docx = new Docx()
+                .body(table(row(cell(paragraph(run("before")) + inner + paragraph(run("after"))),
+                                cell(inner + paragraph(""))),
+                        row(cell(paragraph(run("plain"))), cell(paragraph(run("cell")))))
+                        + paragraph(run("Tail")))
+                .build();
+
+        assertMatchesPoi(docx);
+    }
+
+    @Test
+    void headersAndFooters() throws Exception {
+        byte[] docx = new Docx()
+                .body(paragraph(run("Body text"))
+                        + "<w:sectPr><w:headerReference w:type=\"default\" r:id=\"rIdHeader\"/>"
+                        + "<w:footerReference w:type=\"default\" r:id=\"rIdFooter\"/></w:sectPr>")
+                .part("word/header1.xml", "application/vnd.openxmlformats-officedocument.wordprocessingml.header+xml",
+                        "<w:hdr " + NAMESPACES + ">" + paragraph(run("Jane Doe - Resume")) + paragraph("")
+                                + "</w:hdr>")
+                .relationship("rIdHeader", "header", "header1.xml", false)
+                .part("word/footer1.xml", "application/vnd.openxmlformats-officedocument.wordprocessingml.footer+xml",
+                        "<w:ftr " + NAMESPACES + ">" + paragraph(run("jane@example.com")) + "</w:ftr>")
+                .relationship("rIdFooter", "footer", "footer1.xml", false)
+                .build();
+
+        assertMatchesPoi(docx);
+    }
+
+    @Test
+    void fields() throws Exception {
+        byte[] docx = new Docx()
+                .body(paragraph(run("Updated ") + "<w:fldSimple w:instr=\" DATE \">" + run("Jan 1") + "</w:fldSimple>")
+                        + paragraph(run("Page ")
+                                + "<w:r><w:fldChar w:fldCharType=\"begin\"/></w:r>"
+                                + "<w:r><w:instrText xml:space=\"preserve\"> PAGE </w:instrText></w:r>"
+                                + "<w:r><w:fldChar w:fldCharType=\"separate\"/></w:r>"
+                                + run("7")
+                                + "<w:r><w:fldChar w:fldCharType=\"end\"/></w:r>"))
+                .build();
+
+        assertMatchesPoi(docx);
+    }
+
+    @Test
+    void trackedChangesDifferOnlyByDeletedText() throws Exception {
+        byte[] docx = new Docx()
+                .body(paragraph(run("Led a team of ")
+                        + "<w:del w:id=\"1\" w:author=\"a\"><w:r><w:delText xml:space=\"preserve\">four </w:delText>"
+                        + "</w:r></w:del>"
+                        + "<w:ins w:id=\"2\" w:author=\"a\">" + run("five ") + "</w:ins>"
+                        + run("engineers")))
+                .build();
+
+        String poi = poiText(docx);
+        String ours = DocxTextExtractor.extract(new ByteArrayInputStream(docx), MAX_PART_BYTES);
+
+        // The one known difference: POI keeps deleted revisions, we drop them
+        assertTrue(poi.contains("four "), poi);
+        assertFalse(ours.contains("four "), ours);
+        assertEquals(poi.replace("four ", ""), ours);
+        assertTrue(ours.startsWith("Led a team of five engineers"), ours);
+    }
+
+    @Test
+    void pictures() throws Exception {
+        String picture = "<w:r><w:drawing><wp:inline><wp:extent cx=\"9525\" cy=\"9525\"/>"
+                + "<wp:docPr id=\"1\" name=\"Picture 1\"/>"
+                + "<a:graphic><a:graphicData uri=\"http://schemas.openxmlformats.org/drawingml/2006/picture\">"
+                + "<pic:pic><pic:nvPicPr><pic:cNvPr id=\"1\" name=\"photo.png\" descr=\"Headshot\"/><pic:cNvPicPr/>"
+                + "</pic:nvPicPr><pic:blipFill><a:blip r:embed=\"rIdImage\"/><a:stretch><a:fillRect/></a:stretch>"
+                + "</pic:blipFill><pic:spPr><a:xfrm><a:off x=\"0\" y=\"0\"/><a:ext cx=\"9525\" cy=\"9525\"/></a:xfrm>"
+                + "<a:prstGeom prst=\"rect\"><a:avLst/></a:prstGeom></pic:spPr></pic:pic>"
+                + "</a:graphicData></a:graphic></wp:inline></w:drawing></w:r>";
+        byte[] docx = new Docx()
+                .body(paragraph(picture) + paragraph(run("Caption ") + picture + run("text")))
+                .binaryPart("word/media/image1.png", PNG)
+                .relationship("rIdImage", "image", "media/image1.png", false)
+                .build();
+
+        assertMatchesPoi(docx);
+    }
+
+    @Test
+    void rejectsOversizedParts() throws Exception {
+        byte[] docx = new Docx().body(paragraph(run("x".repeat(4096)))).build();
+
+        Exception e = assertThrows(Exception.class,
+                () -> DocxTextExtractor.extract(new ByteArrayInputStream(docx), 1024));
+        // The StAX reader may wrap the stream's IOException
+        assertTrue(e instanceof IOException || e.getCause() instanceof IOException, e.toString());
+    }
+
+    private static void assertMatchesPoi(byte[] docx) throws Exception {
+        assertEquals(poiText(docx), DocxTextExtractor.extract(new ByteArrayInputStream(docx), MAX_PART_BYTES));
+    }
+
+    private static String poiText(byte[] docx) throws IOException {
+        try (XWPFDocument document = new XWPFDocument(new ByteArrayInputStream(docx));
+                XWPFWordExtractor extractor = new XWPFWordExtractor(document)) {
+            return extractor.getText();
+        }
+    }
+
+    private static String run(String text) {
+        return "<w:r><w:t xml:space=\"preserve\">" + text + "</w:t></w:r>";
+    }
+
+    private static String paragraph(String content) {
+        return "<w:p>" + content + "</w:p>";
+    }
+
+    private static String table(String... rows) {
+        return "<w:tbl><w:tblPr/><w:tblGrid><w:gridCol/><w:gridCol/></w:tblGrid>" + String.join("", rows) + "</w:tbl>";
+    }
+
+    private static String row(String... cells) {
+        return "<w:tr>" + String.join("", cells) + "</w:tr>";
+    }
+
+    private static String cell(String content) {
+        return "<w:tc><w:tcPr/>" + content + "</w:tc>";
+    }
+
+    /** Minimal WordprocessingML package: content types, relationships and the parts added. */
+    private static final class Docx {
+        private final Map<String, byte[]> parts = new LinkedHashMap<>();
+        private final StringBuilder overrides = new StringBuilder();
+        private final StringBuilder relationships = new StringBuilder();
+        private String body = "";
+
+        Docx body(String xml) {
+            this.body = xml;
+            return this;
+        }
+
+        Docx part(String name, String contentType, String xml) {
+            parts.put(name, xml.getBytes(StandardCharsets.UTF_8));
+            overrides.append("<Override PartName=\"/").append(name).append("\" ContentType=\"").append(contentType)
+                    .append("\"/>");
+            return this;
+        }
+
+        Docx binaryPart(String name, byte[] data) {
+            parts.put(name, data);
+            return this;
+        }
+
+        Docx relationship(String id, String type, String target, boolean external) {
+            relationships.append("<Relationship Id=\"").append(id).append("\" Type=\"").append(REL).append(type)
+                    .append("\" Target=\"").append(target).append('"')
+                    .append(external ? " TargetMode=\"External\"" : "").append("/>");
+            return this;
+        }
+
+        byte[] build() throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+                write(zip, "[Content_Types].xml", "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+                        + "<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">"
+                        + "<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>"
+                        + "<Default Extension=\"xml\" ContentType=\"application/xml\"/>"
+                        + "<Default Extension=\"png\" ContentType=\"image/png\"/>"
+                        + "<Override PartName=\"/word/document.xml\" ContentType=\"application/vnd.openxmlformats-"
+                        + "officedocument.wordprocessingml.document.main+xml\"/>"
+                        + overrides
+                        + "</Types>");
+                write(zip, "_rels/.rels", "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+                        + "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">"
+                        + "<Relationship Id=\"rId1\" Type=\"" + REL + "officeDocument\" Target=\"word/document.xml\"/>"
+                        + "</Relationships>");
+                write(zip, "word/_rels/document.xml.rels", "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+                        + "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">"
+                        + relationships
+                        + "</Relationships>");
+                write(zip, "word/document.xml", "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+                        + "<w:document " + NAMESPACES + "><w:body>" + body + "</w:body></w:document>");
+                for (Map.Entry<String, byte[]> part : parts.entrySet()) {
+                    zip.putNextEntry(new ZipEntry(part.getKey()));
+                    zip.write(part.getValue());
+                    zip.closeEntry();
+                }
+            }
+            return bytes.toByteArray();
+        }
+
+        private static void write(ZipOutputStream zip, String name, String xml) throws IOException {
+            zip.putNextEntry(new ZipEntry(name));
+            zip.write(xml.getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.lockin.rewrite.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lockin.rewrite.cache.AnalysisCacheKeys;
+import com.lockin.rewrite.model.Analysis;
+import com.lockin.rewrite.model.AnalysisResponse;
+import com.lockin.rewrite.model.Suggestion;
+import com.lockin.rewrite.model.resume.ResumeData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Locating edited lines in the structured resume: exact field matches only
+ * for short lines, and a full analysis (null) whenever a line could belong to
+ * more than one place.
+ */
+class IncrementalAnalysisServiceTest {
+
+    private static final String BASE_ID = "base";
+    private static final String RESUME_KEY = "resumes/jane.pdf";
+    private static final String JD = "Backend engineer\nGo and Java services";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private ResumeAnalyzerService resumeAnalyzerService;
+    private AnalysisPromptBuilder promptBuilder;
+    private ConcurrentMapCacheManager cacheManager;
+    private IncrementalAnalysisService service;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        resumeAnalyzerService = mock(ResumeAnalyzerService.class);
+        promptBuilder = mock(AnalysisPromptBuilder.class);
+        when(promptBuilder.buildDelta(anyString(), anyString())).thenReturn("delta prompt");
+        when(resumeAnalyzerService.complete(anyString(), anyInt())).thenReturn("{\"bullets\": [], \"suggestions\": []}");
+
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        ValueOperations<String, String> values = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(values);
+        when(values.get("analysis-jd::" + BASE_ID)).thenReturn(JD);
+
+        cacheManager = new ConcurrentMapCacheManager();
+        service = new IncrementalAnalysisService(resumeAnalyzerService, promptBuilder, cacheManager, redisTemplate,
+                Duration.ofHours(1), 0.3, 1000);
+    }
+
+    @Test
+    void shortEditedLinePatchesTheFieldItEquals() throws Exception {
+        String before = resume("Go");
+        storeBase(before, structured("Go"), new Suggestion("s1", "bullet", "Led the Go migration of the billing services",
+                "Led the Go migration of 12 billing services", 0, 0, "quantify", "high"));
+
+        AnalysisResponse response = service.reanalyze(BASE_ID, RESUME_KEY, resume("Rust"), JD);
+
+        assertNotNull(response);
+        assertEquals("Rust", response.getResumeData().getSkills().getLanguages());
+        // "Go" also sits inside this bullet; a substring match would have rewritten it
+        assertEquals("Led the Go migration of the billing services",
+                response.getResumeData().getExperience().get(0).getBulletPoints().get(0).getOriginal());
+        // Nor is the suggestion on that bullet dropped as if its text had changed
+        assertEquals(1, response.getSuggestions().size());
+        assertEquals("incremental", response.getMode());
+    }
+
+    @Test
+    void shortEditedLineWithoutAnExactFieldNeedsAFullAnalysis() throws Exception {
+        // The extractor merged the skills line with another, so "Go" is only a fragment of fields
+        storeBase(resume("Go"), structured("Go, Java"));
+
+        assertNull(service.reanalyze(BASE_ID, RESUME_KEY, resume("Rust"), JD));
+        verify(resumeAnalyzerService, never()).complete(anyString(), anyInt());
+    }
+
+    @Test
+    void lineInSeveralBulletsNeedsAFullAnalysis() throws Exception {
+        String before = """
+                Jane Doe
+                Experience
+                Acme Corp
+                - Wrote unit tests
+                - Built dashboards for the sales team
+                Globex
+                - Wrote unit tests
+                - Shipped the payments service
+                """;
+        String after = before.replaceFirst("Wrote unit tests", "Wrote integration tests");
+        storeBase(before, objectMapper.readValue("""
+                {"experience": [
+                  {"company": "Acme Corp", "bulletPoints": [
+                    {"original": "Wrote unit tests", "improved": "Wrote unit tests"},
+                    {"original": "Built dashboards for the sales team", "improved": "Built dashboards for the sales team"}]},
+                  {"company": "Globex", "bulletPoints": [
+                    {"original": "Wrote unit tests", "improved": "Wrote unit tests"},
+                    {"original": "Shipped the payments service", "improved": "Shipped the payments service"}]}]}
+                """, ResumeData.class));
+
+        assertNull(service.reanalyze(BASE_ID, RESUME_KEY, after, JD));
+        verify(resumeAnalyzerService, never()).complete(anyString(), anyInt());
+    }
+
+    @Test
+    void resultIsNotCachedAsAFullAnalysis() throws Exception {
+        storeBase(resume("Go"), structured("Go"));
+
+        AnalysisResponse response = service.reanalyze(BASE_ID, RESUME_KEY, resume("Rust"), JD);
+
+        assertNotNull(response);
+        String fullId = AnalysisCacheKeys.of(RESUME_KEY, JD);
+        assertNotEquals(fullId, response.getAnalysisId());
+        assertNull(cacheManager.getCache(AnalysisCacheKeys.CACHE_NAME).get(fullId));
+        assertNotNull(cacheManager.getCache(AnalysisCacheKeys.INCREMENTAL_CACHE_NAME).get(response.getAnalysisId()));
+    }
+
+    private void storeBase(String resumeText, ResumeData resumeData, Suggestion... suggestions) {
+        AnalysisResponse base = new AnalysisResponse(resumeText,
+                new Analysis(72.0, List.of("Go"), List.of("Kubernetes")), List.of(suggestions), 72.0);
+        base.setResumeData(resumeData);
+        base.setAnalysisId(BASE_ID);
+        cacheManager.getCache(AnalysisCacheKeys.CACHE_NAME).put(BASE_ID, base);
+    }
+
+    private static String resume(String languagesLine) {
+        return """
+                Jane Doe
+                Experience
+                Acme Corp
+                - Led the Go migration of the billing services
+                - Built dashboards for the sales team
+                - Mentored two junior engineers
+                Skills
+                %s
+                """.formatted(languagesLine);
+    }
+
+    private ResumeData structured(String languages) throws Exception {
+        return objectMapper.readValue("""
+                {"experience": [
+                  {"company": "Acme Corp", "bulletPoints": [
+                    {"original": "Led the Go migration of the billing services", "improved": "Led the Go migration of the billing services"},
+                    {"original": "Built dashboards for the sales team", "improved": "Built dashboards for the sales team"},
+                    {"original": "Mentored two junior engineers", "improved": "Mentored two junior engineers"}]}],
+                 "skills": {"languages": "%s"}}
+                """.formatted(languages), ResumeData.class);
+    }
+}
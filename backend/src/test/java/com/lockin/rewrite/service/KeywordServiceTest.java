@@ -0,0 +1,218 @@
+package com.lockin.rewrite.service;
+
+import com.lockin.rewrite.model.KeywordMatch;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Equivalence of the single-pass tokenizer with the regex implementation it
+ * replaced, kept below as {@link Reference}. The skill dictionary is empty so
+ * only the plain tokenizer is compared; dictionary skills are a later,
+ * deliberate change in output.
+ */
+class KeywordServiceTest {
+
+    private static final String[] WORDS = {
+            "java", "Java", "JAVA", "kubernetes", "the", "and", "with", "api", "go", "c", "x1", "node18",
+            "team", "experience", "microservices", "PostgreSQL", "ci", "cd", "aws", "s3", "2024", "react",
+            "Kafka", "über", "naïve", "straße", "café", "İstanbul", "Kotlin", "dısk", "🚀"};
+
+    private static final String[] SEPARATORS = {
+            " ", "  ", "\t", "\n", "\r\n", "\u000B", "\f", " ", " ", "-", "/", ".", ",", "...", "!?",
+            "(", ")", "--", "_", "+", "#", "@", "'", "\"", "é", "̇", ""};
+
+    private KeywordService keywordService;
+
+    @BeforeEach
+    void setUp(@TempDir Path dir) throws IOException {
+        Path emptyDictionary = Files.writeString(dir.resolve("skills.txt"), "");
+        SkillDictionaryService skills = new SkillDictionaryService(new DefaultResourceLoader(),
+                emptyDictionary.toUri().toString());
+        keywordService = new KeywordService(skills);
+    }
+
+    @Test
+    void edgeCases() {
+        List<String> inputs = List.of(
+                "",
+                " ",
+                "a",
+                "ab",
+                "abc",
+                "!!!---...",
+                "   leading and trailing   ",
+                "CamelCase MIXED case",
+                "end-to-end c++ c# .net node.js",
+                "tabs\tand\nnewlines\r\nand\u000Bvertical\ffeeds",
+                "non breaking separators",
+                "accents: résumé naïve café straße",
+                "İSTANBUL İİx aİb KELVIN KKK",
+                "dısk ııı",
+                "emoji 🚀rocket🚀 🚀",
+                "the and with from into about",
+                "123 4567 2024 x86 i18n");
+        for (String input : inputs) {
+            assertEquivalent(input, input);
+        }
+        for (String resume : inputs) {
+            assertEquivalent(resume, "Java kubernetes Kotlin İstanbul café 2024");
+        }
+        assertEquivalent(null, "java spring");
+    }
+
+    @Test
+    void randomizedTexts() {
+        Random random = new Random(20240917L);
+        for (int round = 0; round < 2_000; round++) {
+            assertEquivalent(randomText(random, random.nextInt(40)), randomText(random, random.nextInt(40)));
+        }
+    }
+
+    @Test
+    void manyDistinctTermsResizeTheTable() {
+        StringBuilder resume = new StringBuilder();
+        StringBuilder jd = new StringBuilder();
+        for (int i = 0; i < 5_000; i++) {
+            jd.append("term").append(i).append(i % 7 == 0 ? ", " : " ");
+            if (i % 3 == 0) {
+                resume.append("TERM").append(i).append('\n');
+            }
+        }
+        assertEquivalent(resume.toString(), jd.toString());
+    }
+
+    private void assertEquivalent(String resumeText, String jobDescription) {
+        assertEquals(Reference.extractKeywords(resumeText), keywordService.extractKeywords(resumeText),
+                () -> "extractKeywords(" + escape(resumeText) + ")");
+        assertEquals(Reference.extractKeywords(jobDescription), keywordService.extractKeywords(jobDescription),
+                () -> "extractKeywords(" + escape(jobDescription) + ")");
+
+        List<String> resumeKeywords = Reference.extractKeywords(resumeText);
+        List<String> jdKeywords = Reference.extractKeywords(jobDescription);
+        List<String> missing = Reference.findMissingKeywords(resumeKeywords, jdKeywords);
+        List<String> matched = jdKeywords.stream().filter(k -> !missing.contains(k)).collect(Collectors.toList());
+
+        KeywordMatch match = keywordService.match(resumeText, jobDescription);
+        String message = "match(" + escape(resumeText) + ", " + escape(jobDescription) + ")";
+        assertEquals(Reference.calculateMatchScore(resumeKeywords, jdKeywords), match.getScore(), message);
+        assertEquals(jdKeywords, match.getJdKeywords(), message);
+        assertEquals(matched, match.getMatchedKeywords(), message);
+        assertEquals(missing, match.getMissingKeywords(), message);
+
+        assertEquals(Reference.calculateMatchScore(resumeKeywords, jdKeywords),
+                keywordService.calculateMatchScore(resumeKeywords, jdKeywords), message);
+        assertEquals(missing, keywordService.findMissingKeywords(resumeKeywords, jdKeywords), message);
+    }
+
+    private static String randomText(Random random, int tokens) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < tokens; i++) {
+            text.append(SEPARATORS[random.nextInt(SEPARATORS.length)]);
+            switch (random.nextInt(4)) {
+                case 0 -> text.append(WORDS[random.nextInt(WORDS.length)]);
+                case 1 -> {
+                    // Random code points, weighted towards ASCII
+                    int length = 1 + random.nextInt(8);
+                    for (int j = 0; j < length; j++) {
+                        int codePoint = random.nextInt(3) == 0 ? random.nextInt(0x3000) : random.nextInt(0x80);
+                        if (!Character.isSurrogate((char) codePoint)) {
+                            text.appendCodePoint(codePoint);
+                        }
+                    }
+                }
+                default -> {
+                    String word = WORDS[random.nextInt(WORDS.length)];
+                    text.append(random.nextBoolean() ? word.toUpperCase(Locale.ROOT) : word);
+                }
+            }
+        }
+        return text.toString();
+    }
+
+    private static String escape(String text) {
+        if (text == null) {
+            return "null";
+        }
+        StringBuilder escaped = new StringBuilder("\"");
+        text.chars().forEach(c -> {
+            if (c >= 0x20 && c < 0x7F) {
+                escaped.append((char) c);
+            } else {
+                escaped.append(String.format("\\u%04X", c));
+            }
+        });
+        return escaped.append('"').toString();
+    }
+
+    /**
+     * The implementation before the single-pass tokenizer, unchanged except
+     * that it lower-cases with {@link Locale#ROOT} instead of the default
+     * locale (under e.g. a Turkish default locale "I" lower-cased to a
+     * dotless i and was stripped; the tokenizer does not depend on locale).
+     */
+    private static final class Reference {
+
+        private static final Set<String> STOPWORDS = new HashSet<>(KeywordService.STOPWORDS.values());
+
+        static List<String> extractKeywords(String text) {
+            if (text == null || text.isEmpty()) {
+                return Collections.emptyList();
+            }
+
+            String normalized = text.toLowerCase(Locale.ROOT)
+                    .replaceAll("[^a-z0-9\\s]", " ")
+                    .replaceAll("\\s+", " ")
+                    .trim();
+
+            String[] tokens = normalized.split(" ");
+
+            return Arrays.stream(tokens)
+                    .filter(token -> token.length() > 2)
+                    .filter(token -> !STOPWORDS.contains(token))
+                    .distinct()
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+
+        static double calculateMatchScore(List<String> resumeKeywords, List<String> jdKeywords) {
+            if (jdKeywords == null || jdKeywords.isEmpty()) {
+                return 0.0;
+            }
+
+            long matchCount = jdKeywords.stream()
+                    .filter(resumeKeywords::contains)
+                    .count();
+
+            double score = (double) matchCount / jdKeywords.size() * 100.0;
+            return Math.round(score * 100.0) / 100.0;
+        }
+
+        static List<String> findMissingKeywords(List<String> resumeKeywords, List<String> jdKeywords) {
+            if (jdKeywords == null || jdKeywords.isEmpty()) {
+                return new ArrayList<>();
+            }
+
+            return jdKeywords.stream()
+                    .filter(keyword -> !resumeKeywords.contains(keyword))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+}